@@ -0,0 +1,136 @@
+package bg.tuvarna.devicebackend.benchmarks;
+
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class BenchmarkData {
+    static final int PREFIXES = 50;
+    static final int RANGE_SIZE = 1000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Passports spread over {@link #PREFIXES} prefixes, each prefix owning consecutive,
+     * non-overlapping serial ranges as model revisions are added over time.
+     */
+    static List<Passport> passports(int count) {
+        List<Passport> passports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int range = i / PREFIXES;
+            passports.add(Passport.builder()
+                    .id((long) i)
+                    .name("Device " + i)
+                    .model("Model-" + i)
+                    .serialPrefix(prefix(i % PREFIXES))
+                    .fromSerialNumber(range * RANGE_SIZE)
+                    .toSerialNumber(range * RANGE_SIZE + RANGE_SIZE - 1)
+                    .warrantyMonths(24)
+                    .build());
+        }
+        return passports;
+    }
+
+    static String prefix(int index) {
+        return "PX" + index + "-";
+    }
+
+    /**
+     * Stands in for the database: answers {@code findBySerialPrefixIn} with every passport whose
+     * prefix is one of the candidate prefixes, which is what the query returns.
+     */
+    static PassportRepository passportRepository(List<Passport> passports) {
+        Map<String, List<Passport>> byPrefix = new HashMap<>();
+        for (Passport passport : passports) {
+            byPrefix.computeIfAbsent(passport.getSerialPrefix(), k -> new ArrayList<>()).add(passport);
+        }
+
+        return (PassportRepository) Proxy.newProxyInstance(
+                PassportRepository.class.getClassLoader(),
+                new Class<?>[]{PassportRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findBySerialPrefixIn")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<Passport> result = new ArrayList<>();
+                    for (Object prefix : (Collection<?>) args[0]) {
+                        result.addAll(byPrefix.getOrDefault(prefix, List.of()));
+                    }
+                    return result;
+                }
+        );
+    }
+
+    /**
+     * A repository for code paths the benchmark never lets reach the database.
+     */
+    static <T> T unusedRepository(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        ));
+    }
+
+    static List<Device> devices(int count) {
+        List<Passport> passports = passports(PREFIXES);
+        List<Device> devices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Passport passport = passports.get(i % passports.size());
+            Device device = new Device();
+            device.setSerialNumber(passport.getSerialPrefix() + i);
+            device.setPurchaseDate(LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            device.setWarrantyExpirationDate(device.getPurchaseDate().plusMonths(36));
+            device.setComment(i % 3 == 0 ? "Replaced battery" : null);
+            device.setPassport(passport);
+            device.setUser(user(i, List.of()));
+
+            List<Renovation> renovations = new ArrayList<>();
+            for (int r = 0; r < i % 3; r++) {
+                Renovation renovation = new Renovation();
+                renovation.setId((long) (i * 3 + r));
+                renovation.setDescription("Service visit " + r);
+                renovation.setRenovationDate(device.getPurchaseDate().plusMonths(r + 1));
+                renovation.setDevice(device);
+                renovations.add(renovation);
+            }
+            device.setRenovations(renovations);
+            devices.add(device);
+        }
+        return devices;
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(i, devices(2)));
+        }
+        return users;
+    }
+
+    private static User user(int index, List<Device> devices) {
+        User user = new User();
+        user.setId((long) index);
+        user.setFullName("User " + index);
+        user.setAddress(index + " Main Street");
+        user.setPhone(String.format("0888%06d", index));
+        user.setEmail("user" + index + "@example.com");
+        user.setRole(UserRole.USER);
+        user.setDevices(devices);
+        return user;
+    }
+}
@@ -0,0 +1,48 @@
+package bg.tuvarna.devicebackend.benchmarks;
+
+import bg.tuvarna.devicebackend.config.DeviceCache;
+import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit path of the device cache against assembling the DeviceVO from an already loaded entity.
+ * The miss path additionally pays the database round trip, which is not part of this measurement.
+ * Run with {@code -prof gc} to confirm the hit path does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceCacheBenchmark {
+    private static final int DEVICES = 1024;
+
+    private DeviceCache deviceCache;
+    private List<Device> devices;
+    private String[] serials;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        deviceCache = new DeviceCache(DEVICES * 2, 3600);
+        devices = BenchmarkData.devices(DEVICES);
+        serials = new String[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            DeviceVO device = new DeviceVO(devices.get(i));
+            deviceCache.put(device, deviceCache.stamp());
+            serials[i] = device.serialNumber();
+        }
+    }
+
+    @Benchmark
+    public DeviceVO cacheHit() {
+        return deviceCache.get(serials[next++ & (DEVICES - 1)]);
+    }
+
+    @Benchmark
+    public DeviceVO assemble() {
+        return new DeviceVO(devices.get(next++ & (DEVICES - 1)));
+    }
+}
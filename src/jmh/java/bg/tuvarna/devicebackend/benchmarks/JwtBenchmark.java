@@ -0,0 +1,52 @@
+package bg.tuvarna.devicebackend.benchmarks;
+
+import bg.tuvarna.devicebackend.config.JwtKeyRing;
+import bg.tuvarna.devicebackend.config.JwtService;
+import bg.tuvarna.devicebackend.config.TokenRevocationRegistry;
+import bg.tuvarna.devicebackend.repositories.UsedRefreshTokenRepository;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtBenchmark {
+    private JwtService cachingJwtService;
+    private JwtService uncachedJwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        String secret = Base64.getEncoder().encodeToString("benchmark-secret-benchmark-secret".getBytes());
+        JwtKeyRing keyRing = new JwtKeyRing(secret, null, "changeit", 24, 360);
+        TokenRevocationRegistry revocationRegistry = new TokenRevocationRegistry(
+                BenchmarkData.unusedRepository(UserRepository.class),
+                BenchmarkData.unusedRepository(UsedRefreshTokenRepository.class)
+        );
+
+        cachingJwtService = new JwtService(keyRing, revocationRegistry, new SimpleMeterRegistry(), 10_000, 15, 14);
+        uncachedJwtService = new JwtService(keyRing, revocationRegistry, new SimpleMeterRegistry(), 0, 15, 14);
+        token = cachingJwtService.generateToken(42L);
+        cachingJwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtService.generateToken(42L);
+    }
+
+    @Benchmark
+    public Claims parseCachedToken() {
+        return cachingJwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims parseAndVerifyToken() {
+        return uncachedJwtService.parseToken(token);
+    }
+}
@@ -0,0 +1,100 @@
+package bg.tuvarna.devicebackend.benchmarks;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.services.PassportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Serial lookups that miss, reported the three ways a caller can see the miss. The lookup
+ * runs below {@code stackDepth} extra frames because the cost of capturing a stack trace
+ * grows with depth, and a request handled by Spring is well over a hundred frames deep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MissPathBenchmark {
+    private static final CustomException PREALLOCATED = CustomException.stackless("Invalid serial number", ErrorCode.Failed);
+
+    @Param({"10", "150"})
+    private int stackDepth;
+
+    private PassportService passportService;
+    private String[] serials;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        passportService = new PassportService(
+                BenchmarkData.passportRepository(BenchmarkData.passports(1000)),
+                event -> {
+                },
+                new SimpleMeterRegistry()
+        );
+
+        serials = new String[1024];
+        for (int i = 0; i < serials.length; i++) {
+            serials[i] = "UNKNOWN-" + i;
+        }
+    }
+
+    @Benchmark
+    public Object withStackTrace() {
+        String serial = nextSerial();
+        return atDepth(stackDepth, () -> {
+            try {
+                return passportService.findBySerialId(serial)
+                        .orElseThrow(() -> new CustomException("Passport not found for serial number: " + serial, ErrorCode.Failed));
+            } catch (CustomException e) {
+                return e.getErrorCode();
+            }
+        });
+    }
+
+    @Benchmark
+    public Object stackless() {
+        String serial = nextSerial();
+        return atDepth(stackDepth, () -> {
+            try {
+                return passportService.findPassportBySerialId(serial);
+            } catch (CustomException e) {
+                return e.getErrorCode();
+            }
+        });
+    }
+
+    @Benchmark
+    public Object preallocated() {
+        String serial = nextSerial();
+        return atDepth(stackDepth, () -> {
+            try {
+                return passportService.findBySerialId(serial).orElseThrow(() -> PREALLOCATED);
+            } catch (CustomException e) {
+                return e.getErrorCode();
+            }
+        });
+    }
+
+    @Benchmark
+    public Object optional() {
+        String serial = nextSerial();
+        return atDepth(stackDepth, () -> {
+            Optional<Passport> passport = passportService.findBySerialId(serial);
+            return passport.isPresent() ? passport.get() : ErrorCode.Failed;
+        });
+    }
+
+    private String nextSerial() {
+        return serials[next++ & (serials.length - 1)];
+    }
+
+    private static Object atDepth(int depth, Supplier<Object> body) {
+        return depth == 0 ? body.get() : atDepth(depth - 1, body);
+    }
+}
@@ -0,0 +1,43 @@
+package bg.tuvarna.devicebackend.benchmarks;
+
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.services.PassportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PassportLookupBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int passportCount;
+
+    private PassportService passportService;
+    private String[] serials;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        passportService = new PassportService(
+                BenchmarkData.passportRepository(BenchmarkData.passports(passportCount)),
+                event -> {
+                },
+                new SimpleMeterRegistry()
+        );
+
+        int ranges = Math.max(1, passportCount / BenchmarkData.PREFIXES);
+        serials = new String[1024];
+        for (int i = 0; i < serials.length; i++) {
+            int serial = (i * 7919) % (ranges * BenchmarkData.RANGE_SIZE);
+            serials[i] = BenchmarkData.prefix(i % BenchmarkData.PREFIXES) + serial;
+        }
+    }
+
+    @Benchmark
+    public Passport findPassportBySerialId() {
+        String serial = serials[next++ & (serials.length - 1)];
+        return passportService.findPassportBySerialId(serial);
+    }
+}
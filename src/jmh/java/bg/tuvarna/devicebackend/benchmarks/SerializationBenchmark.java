@@ -0,0 +1,55 @@
+package bg.tuvarna.devicebackend.benchmarks;
+
+import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
+import bg.tuvarna.devicebackend.models.dtos.UserVO;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private List<Device> devices;
+    private List<User> users;
+    private List<DeviceVO> deviceVOs;
+    private List<UserVO> userVOs;
+
+    @Setup
+    public void setUp() {
+        devices = BenchmarkData.devices(pageSize);
+        users = BenchmarkData.users(pageSize);
+        deviceVOs = toDeviceVOs();
+        userVOs = toUserVOs();
+    }
+
+    @Benchmark
+    public List<DeviceVO> toDeviceVOs() {
+        return devices.stream().map(DeviceVO::new).toList();
+    }
+
+    @Benchmark
+    public List<UserVO> toUserVOs() {
+        return users.stream().map(UserVO::new).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeDeviceVOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(deviceVOs);
+    }
+
+    @Benchmark
+    public byte[] serializeUserVOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userVOs);
+    }
+}
@@ -0,0 +1,31 @@
+package bg.tuvarna.devicebackend.benchmarks;
+
+import bg.tuvarna.devicebackend.validators.ValidEmailValidator;
+import bg.tuvarna.devicebackend.validators.ValidPasswordValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidatorBenchmark {
+    @Param({"john.doe@example.com", "not-an-email@@example"})
+    private String email;
+
+    @Param({"Password123!", "password"})
+    private String password;
+
+    private final ValidEmailValidator emailValidator = new ValidEmailValidator();
+    private final ValidPasswordValidator passwordValidator = new ValidPasswordValidator();
+
+    @Benchmark
+    public boolean validateEmail() {
+        return emailValidator.isValid(email, null);
+    }
+
+    @Benchmark
+    public boolean validatePassword() {
+        return passwordValidator.isValid(password, null);
+    }
+}
@@ -0,0 +1,173 @@
+package bg.tuvarna.devicebackend.loadtest;
+
+import bg.tuvarna.devicebackend.utils.SearchNormalizer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Fills an existing schema (start the application once against the database first) with a
+ * synthetic dataset using batched JDBC inserts.
+ *
+ * <pre>
+ * ./gradlew seedData -Pargs="--url=jdbc:postgresql://localhost:5555/devices --user=postgres --password=postgres --devices=1000000"
+ * </pre>
+ */
+public final class DataSeeder {
+    private static final LocalDate START_DATE = LocalDate.of(2020, 1, 1);
+
+    private final Connection connection;
+    private final Dataset dataset;
+    private final int batchSize;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private DataSeeder(Connection connection, Dataset dataset, int batchSize) {
+        this.connection = connection;
+        this.dataset = dataset;
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] rawArgs) throws SQLException {
+        LoadTestArgs args = new LoadTestArgs(rawArgs);
+        Dataset dataset = Dataset.from(args);
+
+        try (Connection connection = DriverManager.getConnection(
+                args.get("url", "jdbc:postgresql://localhost:5555/devices"),
+                args.get("user", "postgres"),
+                args.get("password", "postgres")
+        )) {
+            connection.setAutoCommit(false);
+            DataSeeder seeder = new DataSeeder(connection, dataset, args.getInt("batch", 1000));
+
+            long start = System.nanoTime();
+            long[] passportIds = seeder.insertPassports();
+            long[] userIds = seeder.insertUsers();
+            seeder.insertDevices(passportIds, userIds);
+            seeder.insertRenovations();
+            System.out.printf("Seeded %s in %d s%n", dataset, (System.nanoTime() - start) / 1_000_000_000L);
+        }
+    }
+
+    private long[] insertPassports() throws SQLException {
+        String sql = "insert into public.passports (name, model, serial_prefix, from_serial_number, to_serial_number, warranty_months, " +
+                "name_normalized, model_normalized) values (?, ?, ?, ?, ?, ?, ?, ?)";
+        long[] ids = new long[dataset.passports()];
+        try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"})) {
+            int written = 0;
+            for (int i = 0; i < dataset.passports(); i++) {
+                String name = "Load test device " + i;
+                String model = "LT-" + i;
+                statement.setString(1, name);
+                statement.setString(2, model);
+                statement.setString(3, dataset.prefix(i));
+                statement.setInt(4, dataset.fromSerialNumber(i));
+                statement.setInt(5, dataset.toSerialNumber(i));
+                statement.setInt(6, 12 + 12 * (i % 3));
+                statement.setString(7, SearchNormalizer.text(name));
+                statement.setString(8, SearchNormalizer.text(model));
+                statement.addBatch();
+                if ((i + 1) % batchSize == 0 || i + 1 == dataset.passports()) {
+                    written = flush(statement, ids, written);
+                }
+            }
+        }
+        log("passports", dataset.passports());
+        return ids;
+    }
+
+    private long[] insertUsers() throws SQLException {
+        String sql = "insert into public.users (full_name, address, phone, email, password, role, " +
+                "full_name_normalized, phone_normalized, email_normalized) values (?, ?, ?, ?, ?, 'USER', ?, ?, ?)";
+        String passwordHash = new BCryptPasswordEncoder(10).encode(Dataset.PASSWORD);
+        long[] ids = new long[dataset.users()];
+        try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"})) {
+            int written = 0;
+            for (int i = 0; i < dataset.users(); i++) {
+                String fullName = "Load Test User " + i;
+                statement.setString(1, fullName);
+                statement.setString(2, i + " Load Test Street");
+                statement.setString(3, dataset.phone(i));
+                statement.setString(4, dataset.email(i));
+                statement.setString(5, passwordHash);
+                statement.setString(6, SearchNormalizer.text(fullName));
+                statement.setString(7, SearchNormalizer.phone(dataset.phone(i)));
+                statement.setString(8, SearchNormalizer.text(dataset.email(i)));
+                statement.addBatch();
+                if ((i + 1) % batchSize == 0 || i + 1 == dataset.users()) {
+                    written = flush(statement, ids, written);
+                }
+            }
+        }
+        log("users", dataset.users());
+        return ids;
+    }
+
+    private void insertDevices(long[] passportIds, long[] userIds) throws SQLException {
+        String sql = "insert into public.devices (serial_number, purchase_date, warranty_expiration_date, comment, user_id, passport_id, " +
+                "serial_number_normalized) values (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < dataset.devices(); i++) {
+                LocalDate purchaseDate = START_DATE.plusDays(random.nextInt(5 * 365));
+                statement.setString(1, dataset.deviceSerial(i));
+                statement.setDate(2, Date.valueOf(purchaseDate));
+                statement.setDate(3, Date.valueOf(purchaseDate.plusMonths(24)));
+                statement.setString(4, i % 10 == 0 ? "Seeded for load testing" : null);
+                if (userIds.length > 0 && random.nextInt(10) < 8) {
+                    statement.setLong(5, userIds[random.nextInt(userIds.length)]);
+                } else {
+                    statement.setNull(5, java.sql.Types.BIGINT);
+                }
+                statement.setLong(6, passportIds[dataset.passportOfDevice(i)]);
+                statement.setString(7, SearchNormalizer.text(dataset.deviceSerial(i)));
+                statement.addBatch();
+                if ((i + 1) % batchSize == 0 || i + 1 == dataset.devices()) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        log("devices", dataset.devices());
+    }
+
+    private void insertRenovations() throws SQLException {
+        if (dataset.devices() == 0) {
+            return;
+        }
+        String sql = "insert into public.renovations (description, renovation_date, device_serial_number) values (?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < dataset.renovations(); i++) {
+                statement.setString(1, "Service visit " + i);
+                statement.setDate(2, Date.valueOf(START_DATE.plusDays(365 + random.nextInt(4 * 365))));
+                statement.setString(3, dataset.deviceSerial(random.nextInt(dataset.devices())));
+                statement.addBatch();
+                if ((i + 1) % batchSize == 0 || i + 1 == dataset.renovations()) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        log("renovations", dataset.renovations());
+    }
+
+    private int flush(PreparedStatement statement, long[] ids, int written) throws SQLException {
+        statement.executeBatch();
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids[written++] = keys.getLong(1);
+            }
+        }
+        connection.commit();
+        return written;
+    }
+
+    private static void log(String table, int rows) {
+        System.out.printf("Inserted %,d %s%n", rows, table);
+    }
+}
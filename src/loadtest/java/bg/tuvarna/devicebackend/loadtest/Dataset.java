@@ -0,0 +1,64 @@
+package bg.tuvarna.devicebackend.loadtest;
+
+/**
+ * Deterministic naming for the synthetic dataset, shared by the seeder and the load driver
+ * so the driver can address existing rows without reading them back.
+ */
+record Dataset(int passports, int users, int devices, int renovations) {
+    static final String PASSWORD = "Password123!";
+    private static final int PREFIXES = 100;
+
+    static Dataset from(LoadTestArgs args) {
+        return new Dataset(
+                args.getInt("passports", 10_000),
+                args.getInt("users", 100_000),
+                args.getInt("devices", 1_000_000),
+                args.getInt("renovations", 200_000)
+        );
+    }
+
+    int rangeSize() {
+        return Math.max(1000, (devices + passports - 1) / Math.max(1, passports) + 1);
+    }
+
+    String prefix(int passport) {
+        return "LT" + (passport % PREFIXES) + "-";
+    }
+
+    int fromSerialNumber(int passport) {
+        return (passport / PREFIXES) * rangeSize();
+    }
+
+    int toSerialNumber(int passport) {
+        return fromSerialNumber(passport) + rangeSize() - 1;
+    }
+
+    int passportOfDevice(int device) {
+        return device % passports;
+    }
+
+    String deviceSerial(int device) {
+        int passport = passportOfDevice(device);
+        return prefix(passport) + (fromSerialNumber(passport) + device / passports);
+    }
+
+    /**
+     * A serial inside a passport range that no device uses.
+     */
+    String unregisteredSerial(int passport) {
+        return prefix(passport) + toSerialNumber(passport);
+    }
+
+    String email(int user) {
+        return "loadtest" + user + "@example.com";
+    }
+
+    String phone(int user) {
+        return String.format("+3597%08d", user);
+    }
+
+    @Override
+    public String toString() {
+        return "passports=" + passports + " users=" + users + " devices=" + devices + " renovations=" + renovations;
+    }
+}
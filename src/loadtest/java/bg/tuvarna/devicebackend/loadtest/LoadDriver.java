@@ -0,0 +1,236 @@
+package bg.tuvarna.devicebackend.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load driver: each virtual thread replays a weighted mix of the public and
+ * admin endpoints against a running instance and records latencies per endpoint.
+ *
+ * <pre>
+ * ./gradlew loadTest -Pargs="--base-url=http://localhost:8082 --concurrency=200 --duration-seconds=60 --devices=1000000"
+ * </pre>
+ *
+ * Start the service with {@code --rate-limit.enabled=false}, otherwise the driver is throttled
+ * as a single client.
+ */
+public final class LoadDriver {
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final Dataset dataset;
+    private final Map<Endpoint, Stats> stats = new LinkedHashMap<>();
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+    private String adminToken;
+
+    private LoadDriver(String baseUrl, Dataset dataset, Map<Endpoint, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.cumulativeWeights = new int[Endpoint.values().length];
+        int sum = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            sum += mix.getOrDefault(endpoint, 0);
+            cumulativeWeights[endpoint.ordinal()] = sum;
+            stats.put(endpoint, new Stats());
+        }
+        this.totalWeight = sum;
+    }
+
+    public static void main(String[] rawArgs) throws Exception {
+        LoadTestArgs args = new LoadTestArgs(rawArgs);
+        Dataset dataset = Dataset.from(args);
+        Map<Endpoint, Integer> mix = new LinkedHashMap<>();
+        mix.put(Endpoint.LOGIN, args.getInt("weight-login", 5));
+        mix.put(Endpoint.DEVICE_EXISTS, args.getInt("weight-exists", 40));
+        mix.put(Endpoint.PASSPORT_BY_SERIAL, args.getInt("weight-passport", 35));
+        mix.put(Endpoint.DEVICE_SEARCH, args.getInt("weight-search", 20));
+
+        LoadDriver driver = new LoadDriver(args.get("base-url", "http://localhost:8082"), dataset, mix);
+        driver.adminToken = driver.login(args.get("admin-user", "admin"), args.get("admin-password", "admin"));
+
+        int concurrency = args.getInt("concurrency", 200);
+        Duration warmup = Duration.ofSeconds(args.getInt("warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(args.getInt("duration-seconds", 60));
+
+        System.out.printf("Warming up for %d s with %d virtual users%n", warmup.toSeconds(), concurrency);
+        driver.run(concurrency, warmup);
+        driver.stats.values().forEach(Stats::reset);
+
+        System.out.printf("Measuring for %d s against %s%n", duration.toSeconds(), dataset);
+        driver.run(concurrency, duration);
+        driver.report(args.get("label", ""), duration, Path.of(args.get("report", "build/reports/loadtest/results.csv")));
+    }
+
+    private void run(int concurrency, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                long seed = i;
+                executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    while (System.nanoTime() < deadline) {
+                        execute(pick(random), random);
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+    }
+
+    private Endpoint pick(SplittableRandom random) {
+        int value = random.nextInt(totalWeight);
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (value < cumulativeWeights[endpoint.ordinal()]) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("Empty endpoint mix");
+    }
+
+    private void execute(Endpoint endpoint, SplittableRandom random) {
+        HttpRequest request = switch (endpoint) {
+            case LOGIN -> loginRequest(dataset.email(random.nextInt(Math.max(1, dataset.users()))), Dataset.PASSWORD);
+            case DEVICE_EXISTS -> get("/api/v1/devices/exists/" + randomSerial(random), null);
+            case PASSPORT_BY_SERIAL -> get("/api/v1/passports/getBySerialId/" + randomSerial(random), null);
+            case DEVICE_SEARCH -> get("/api/v1/devices?page=1&size=20&searchBy="
+                    + URLEncoder.encode(dataset.prefix(random.nextInt(Math.max(1, dataset.passports()))), StandardCharsets.UTF_8), adminToken);
+        };
+
+        Stats endpointStats = stats.get(endpoint);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            endpointStats.recorder.recordValue(System.nanoTime() - start);
+            if (response.statusCode() >= 500 || response.statusCode() == 429 || response.statusCode() == 401) {
+                endpointStats.errors.increment();
+            }
+        } catch (IOException e) {
+            endpointStats.recorder.recordValue(System.nanoTime() - start);
+            endpointStats.errors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Nine in ten lookups hit an existing device, the rest probe a free serial in a known range.
+     */
+    private String randomSerial(SplittableRandom random) {
+        if (dataset.devices() > 0 && random.nextInt(10) < 9) {
+            return dataset.deviceSerial(random.nextInt(dataset.devices()));
+        }
+        return dataset.unregisteredSerial(random.nextInt(Math.max(1, dataset.passports())));
+    }
+
+    private String login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(loginRequest(username, password), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Admin login failed with status " + response.statusCode());
+        }
+        return matcher.group(1);
+    }
+
+    private HttpRequest loginRequest(String username, String password) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/users/login"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private void report(String label, Duration duration, Path csv) throws IOException {
+        List<String> rows = new ArrayList<>();
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+
+        System.out.printf("%-20s %10s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+            long errors = entry.getValue().errors.sum();
+            total.add(histogram);
+            totalErrors += errors;
+            rows.add(print(entry.getKey().name(), histogram, errors, duration));
+        }
+        rows.add(print("TOTAL", total, totalErrors, duration));
+
+        Files.createDirectories(csv.toAbsolutePath().getParent());
+        if (Files.notExists(csv)) {
+            Files.writeString(csv, "timestamp,label,passports,users,devices,renovations,endpoint,requests,rps,errors,p50_ms,p99_ms,p999_ms,max_ms\n");
+        }
+        String prefix = Instant.now() + "," + label + "," + dataset.passports() + "," + dataset.users() + ","
+                + dataset.devices() + "," + dataset.renovations() + ",";
+        Files.write(csv, rows.stream().map(row -> prefix + row).toList(), StandardOpenOption.APPEND);
+        System.out.println("Appended results to " + csv.toAbsolutePath());
+    }
+
+    private static String print(String name, Histogram histogram, long errors, Duration duration) {
+        double rps = histogram.getTotalCount() / (double) duration.toSeconds();
+        double p50 = histogram.getValueAtPercentile(50) / 1e6;
+        double p99 = histogram.getValueAtPercentile(99) / 1e6;
+        double p999 = histogram.getValueAtPercentile(99.9) / 1e6;
+        double max = histogram.getMaxValue() / 1e6;
+        System.out.printf("%-20s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                name, histogram.getTotalCount(), rps, errors, p50, p99, p999, max);
+        return String.format(java.util.Locale.ROOT, "%s,%d,%.1f,%d,%.3f,%.3f,%.3f,%.3f",
+                name, histogram.getTotalCount(), rps, errors, p50, p99, p999, max);
+    }
+
+    private enum Endpoint {
+        LOGIN,
+        DEVICE_EXISTS,
+        PASSPORT_BY_SERIAL,
+        DEVICE_SEARCH
+    }
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+
+        private void reset() {
+            recorder.reset();
+            errors.reset();
+        }
+    }
+}
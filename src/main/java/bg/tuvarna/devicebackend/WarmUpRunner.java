@@ -0,0 +1,246 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.JwtService;
+import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
+import bg.tuvarna.devicebackend.models.dtos.PassportVO;
+import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserVO;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+import bg.tuvarna.devicebackend.repositories.RenovationRepository;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import bg.tuvarna.devicebackend.utils.CustomPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Runs after {@link InitialDataSetup}. Command line runners finish before the application reports
+ * readiness, so traffic only arrives once the pool is open, the repository queries have been
+ * translated, the passports are in the second-level cache and the JSON and JWT code is compiled.
+ * A failing step is logged and skipped; warm-up never keeps the application from starting.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "warm-up.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmUpRunner implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpRunner.class);
+    private static final String PROBE = "#warm-up#";
+
+    private final DataSource dataSource;
+    private final TransactionTemplate readOnlyTransaction;
+    private final UserRepository userRepository;
+    private final DeviceRepository deviceRepository;
+    private final PassportRepository passportRepository;
+    private final RenovationRepository renovationRepository;
+    private final ObjectMapper objectMapper;
+    private final JwtService jwtService;
+    private final int connections;
+    private final int iterations;
+    private final int passportLimit;
+
+    public WarmUpRunner(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            UserRepository userRepository,
+            DeviceRepository deviceRepository,
+            PassportRepository passportRepository,
+            RenovationRepository renovationRepository,
+            ObjectMapper objectMapper,
+            JwtService jwtService,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${db.max-concurrency:10}") int maxConcurrency,
+            @Value("${warm-up.iterations:1000}") int iterations,
+            @Value("${warm-up.passport-limit:2000}") int passportLimit
+    ) {
+        this.dataSource = dataSource;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.userRepository = userRepository;
+        this.deviceRepository = deviceRepository;
+        this.passportRepository = passportRepository;
+        this.renovationRepository = renovationRepository;
+        this.objectMapper = objectMapper;
+        this.jwtService = jwtService;
+        this.connections = Math.min(poolSize, maxConcurrency);
+        this.iterations = iterations;
+        this.passportLimit = passportLimit;
+    }
+
+    @Override
+    public void run(String... args) {
+        long started = System.nanoTime();
+        step("connection pool", this::openConnections);
+        step("repository queries", () -> readOnlyTransaction.executeWithoutResult(status -> primeQueries()));
+        step("passport cache", () -> readOnlyTransaction.executeWithoutResult(status -> preloadPassports()));
+        step("serialization", this::exerciseSerialization);
+        step("jwt", this::exerciseJwt);
+        logger.info("Warm-up finished in {} ms", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void step(String name, WarmUpStep step) {
+        long started = System.nanoTime();
+        try {
+            step.run();
+            logger.info("Warm-up of {} took {} ms", name, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            logger.warn("Warm-up of {} failed, continuing without it", name, e);
+        }
+    }
+
+    /**
+     * Holds the connections at the same time so the pool has to open all of them now.
+     */
+    private void openConnections() throws SQLException {
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = dataSource.getConnection();
+                opened.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : opened) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Runs every read query once with arguments that match nothing. The modifying queries are left
+     * out so warm-up never writes.
+     */
+    private void primeQueries() {
+        PageRequest page = PageRequest.of(0, 1);
+
+        userRepository.getByEmail(PROBE);
+        userRepository.existsByEmailNormalized(PROBE);
+        userRepository.existsByPhoneNormalized(PROBE);
+        userRepository.findFirstByEmailNormalizedOrderByIdAsc(PROBE);
+        userRepository.findFirstByPhoneNormalizedOrderByIdAsc(PROBE);
+        userRepository.findCredentialsByEmail(PROBE);
+        userRepository.findCredentialsByPhone(PROBE);
+        userRepository.findPrincipalById(-1L);
+        userRepository.findTokenRevocationsAfter(Instant.now());
+        userRepository.searchBy(PROBE, null, page);
+        userRepository.getAllUsers(page);
+        userRepository.findById(-1L);
+        // in_clause_parameter_padding rounds the id list up to a power of two; this covers page sizes up to 16.
+        for (int size = 1; size <= 16; size *= 2) {
+            List<Long> ids = LongStream.rangeClosed(1, size).map(id -> -id).boxed().toList();
+            userRepository.findDeviceSummaries(ids);
+            userRepository.findDeviceSummariesBySerialNumber(ids, PROBE);
+        }
+
+        deviceRepository.findAll(PROBE, null, page);
+        deviceRepository.getAllDevices(page);
+        deviceRepository.findById(PROBE);
+
+        passportRepository.findByFromSerialNumberBetween(PROBE, 0, 0);
+        passportRepository.findBySerialPrefixIn(List.of(PROBE));
+        passportRepository.findById(-1L);
+
+        renovationRepository.findById(-1L);
+    }
+
+    private void preloadPassports() {
+        int pageSize = 500;
+        Page<Passport> page = passportRepository.findAll(PageRequest.of(0, pageSize));
+        int loaded = page.getNumberOfElements();
+        while (page.hasNext() && loaded < passportLimit) {
+            page = passportRepository.findAll(page.nextPageable());
+            loaded += page.getNumberOfElements();
+        }
+        logger.info("Warm-up loaded {} passports into the second-level cache", loaded);
+    }
+
+    private void exerciseSerialization() throws Exception {
+        Device device = syntheticDevice();
+        CustomPage<UserVO> users = new CustomPage<>();
+        users.setItems(Collections.nCopies(10, new UserVO(device.getUser())));
+        users.setSize(10);
+        byte[] request = objectMapper.writeValueAsBytes(new UserCreateVO(
+                "Warm Up", "Password123!", "warm-up@example.com", "0888000000", "1 Main Street", LocalDate.now(), null
+        ));
+
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.writeValueAsBytes(new DeviceVO(device));
+            objectMapper.writeValueAsBytes(new PassportVO(device.getPassport()));
+            objectMapper.writeValueAsBytes(users);
+            objectMapper.readValue(request, UserCreateVO.class);
+        }
+    }
+
+    /**
+     * Every token carries a distinct claim so each parse goes through signature verification
+     * instead of the verified-token cache.
+     */
+    private void exerciseJwt() {
+        for (int i = 0; i < iterations; i++) {
+            String token = jwtService.generateToken(Map.of("warmUp", i), -1L);
+            Claims claims = jwtService.parseToken(token);
+            jwtService.isAccessToken(claims);
+        }
+    }
+
+    private static Device syntheticDevice() {
+        Passport passport = Passport.builder()
+                .id(-1L)
+                .name("Warm-up")
+                .model("WU-1")
+                .serialPrefix("WU")
+                .fromSerialNumber(1)
+                .toSerialNumber(1000)
+                .warrantyMonths(24)
+                .build();
+
+        User user = new User();
+        user.setId(-1L);
+        user.setFullName("Warm Up");
+        user.setEmail("warm-up@example.com");
+        user.setPhone("0888000000");
+        user.setAddress("1 Main Street");
+        user.setRole(UserRole.USER);
+
+        Device device = new Device();
+        device.setSerialNumber("WU1");
+        device.setPurchaseDate(LocalDate.now());
+        device.setWarrantyExpirationDate(LocalDate.now().plusMonths(24));
+        device.setPassport(passport);
+        device.setUser(user);
+        device.setRenovations(List.of());
+        user.setDevices(List.of(device));
+        return device;
+    }
+
+    @FunctionalInterface
+    private interface WarmUpStep {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,82 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.enums.RequestPriority;
+import bg.tuvarna.devicebackend.utils.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+    /**
+     * Takes the {@link DataSource} so the pools exist, and are bounded, before they are looked up.
+     */
+    @Bean
+    public AdmissionControlFilter admissionControlFilter(
+            DataSource dataSource,
+            ObjectProvider<BoundedDataSourcePostProcessor> boundedDataSources,
+            ObjectMapper objectMapper,
+            @Value("${admission.initial-limit:50}") int initialLimit,
+            @Value("${admission.min-limit:5}") int minLimit,
+            @Value("${admission.max-limit:500}") int maxLimit,
+            @Value("${admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${admission.wait-threshold-ms:50}") long waitThresholdMillis
+    ) {
+        BoundedDataSourcePostProcessor postProcessor = boundedDataSources.getIfAvailable();
+        if (postProcessor == null || postProcessor.getDataSources().isEmpty()) {
+            throw new IllegalStateException("Admission control needs the bounded DataSource, set db.max-concurrency");
+        }
+        return new AdmissionControlFilter(
+                new AdaptiveConcurrencyLimiter(
+                        initialLimit,
+                        minLimit,
+                        maxLimit,
+                        backoffRatio,
+                        TimeUnit.MILLISECONDS.toNanos(waitThresholdMillis)
+                ),
+                postProcessor.getDataSources(),
+                List.of(
+                        new AdmissionControlFilter.PriorityGroup(
+                                RequestPriority.HIGH,
+                                new OrRequestMatcher(
+                                        new AntPathRequestMatcher("/api/v1/users/login"),
+                                        new AntPathRequestMatcher("/api/v1/users/registration"),
+                                        new AntPathRequestMatcher("/api/v1/users/refresh"),
+                                        new AntPathRequestMatcher("/api/v1/devices/exists/**"),
+                                        new AntPathRequestMatcher("/api/v1/passports/getBySerialId/*")
+                                )
+                        ),
+                        new AdmissionControlFilter.PriorityGroup(
+                                RequestPriority.LOW,
+                                new OrRequestMatcher(
+                                        new AntPathRequestMatcher("/api/v1/users", HttpMethod.GET.name()),
+                                        new AntPathRequestMatcher("/api/v1/devices", HttpMethod.GET.name()),
+                                        new AntPathRequestMatcher("/api/v1/passports", HttpMethod.GET.name()),
+                                        new AntPathRequestMatcher("/api/v1/snapshots/**")
+                                )
+                        )
+                ),
+                objectMapper
+        );
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilterRegistration(AdmissionControlFilter admissionControlFilter) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(admissionControlFilter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 5);
+        return registration;
+    }
+}
@@ -0,0 +1,116 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
+import bg.tuvarna.devicebackend.models.enums.RequestPriority;
+import bg.tuvarna.devicebackend.utils.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Admits requests against an {@link AdaptiveConcurrencyLimiter} fed with the connection wait
+ * times of the {@link BoundedDataSource}s, averaged over every pool. When the database slows
+ * down, the limit drops and the lower priorities are answered with 503 right away instead of
+ * queueing for a connection.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter implements MeterBinder {
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Collection<BoundedDataSource> dataSources;
+    private final List<PriorityGroup> groups;
+    private final ObjectMapper objectMapper;
+
+    private long lastAcquisitions;
+    private long lastWaitNanos;
+    private volatile long averageWaitNanos;
+
+    public AdmissionControlFilter(
+            AdaptiveConcurrencyLimiter limiter,
+            Collection<BoundedDataSource> dataSources,
+            List<PriorityGroup> groups,
+            ObjectMapper objectMapper
+    ) {
+        this.limiter = limiter;
+        this.dataSources = dataSources;
+        this.groups = groups;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire(priorityOf(request))) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("application/json");
+            objectMapper.writeValue(
+                    response.getWriter(),
+                    new ErrorResponse(new CustomException("Service is busy, try again later", ErrorCode.Overloaded))
+            );
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${admission.interval-ms:250}")
+    public void adjustLimit() {
+        long acquisitions = 0;
+        long waitNanos = 0;
+        for (BoundedDataSource dataSource : dataSources) {
+            acquisitions += dataSource.getAcquisitions();
+            waitNanos += dataSource.getAcquireWaitNanos();
+        }
+        long count = acquisitions - lastAcquisitions;
+        averageWaitNanos = count == 0 ? 0 : (waitNanos - lastWaitNanos) / count;
+        lastAcquisitions = acquisitions;
+        lastWaitNanos = waitNanos;
+        limiter.update(averageWaitNanos);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("admission.limit", limiter, AdaptiveConcurrencyLimiter::limit).register(registry);
+        Gauge.builder("admission.in_flight", limiter, AdaptiveConcurrencyLimiter::inFlight).register(registry);
+        Gauge.builder("admission.db.wait", this, filter -> filter.averageWaitNanos / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(registry);
+        for (RequestPriority priority : RequestPriority.values()) {
+            FunctionCounter.builder("admission.rejected", limiter, l -> l.rejectedCount(priority))
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+
+    private RequestPriority priorityOf(HttpServletRequest request) {
+        for (PriorityGroup group : groups) {
+            if (group.matcher().matches(request)) {
+                return group.priority();
+            }
+        }
+        return RequestPriority.NORMAL;
+    }
+
+    public record PriorityGroup(RequestPriority priority, RequestMatcher matcher) {
+    }
+}
@@ -1,41 +1,27 @@
 package bg.tuvarna.devicebackend.config;
 
-import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.ProviderManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
 
 @Configuration
-@AllArgsConstructor
 public class ApplicationConfig {
-    private final UserDetailsServiceConfig userDetailsService;
-
-    @Bean
-    public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
-    }
-
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(LoginAuthenticationProvider loginAuthenticationProvider) {
         return new ProviderManager(
                 Collections.singletonList(
-                        authenticationProvider()
+                        loginAuthenticationProvider
                 )
         );
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordEncoder passwordEncoder(BcryptCostCalibrator bcryptCostCalibrator) {
+        return new BCryptPasswordEncoder(bcryptCostCalibrator.cost());
     }
-}
\ No newline at end of file
+}
@@ -5,11 +5,10 @@ import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
 import bg.tuvarna.devicebackend.models.dtos.AuthResponseDTO;
 import bg.tuvarna.devicebackend.models.dtos.UserLoginDTO;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
 import bg.tuvarna.devicebackend.models.dtos.UserVO;
-import bg.tuvarna.devicebackend.models.entities.User;
 import bg.tuvarna.devicebackend.services.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.Gson;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -25,7 +24,6 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.AuthenticationConverter;
 import org.springframework.security.web.authentication.AuthenticationFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
 
 import java.io.IOException;
 
@@ -50,10 +48,13 @@ public class AuthFilter {
 
     private void successHandler(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Authentication authentication) {
         if (authentication.isAuthenticated()) {
-            User principal = (User) authentication.getPrincipal();
-            String token = jwtService.generateToken(userService.getUserById(principal.getId()));
-            UserVO userVO = new UserVO(principal);
-            AuthResponseDTO responseDTO = new AuthResponseDTO(token, userVO);
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+            String token = jwtService.generateToken(principal.id());
+            String refreshToken = jwtService.generateRefreshToken(principal.id());
+            UserVO userVO = authentication.getDetails() instanceof UserVO details
+                    ? details
+                    : new UserVO(userService.getUserById(principal.id()), false);
+            AuthResponseDTO responseDTO = new AuthResponseDTO(token, userVO, refreshToken);
             httpServletResponse.setStatus(HttpServletResponse.SC_OK);
             httpServletResponse.setContentType("application/json");
             try {
@@ -68,12 +69,21 @@ public class AuthFilter {
     private void failureHandler(HttpServletRequest request,
                                 HttpServletResponse response,
                                 AuthenticationException e) throws IOException {
-        response.setStatus(HttpStatus.UNAUTHORIZED.value());
         response.setContentType("application/json");
 
-        ErrorResponse body = new ErrorResponse(
-                new CustomException("Wrong credentials!", ErrorCode.WrongCredentials)
-        );
+        ErrorResponse body;
+        if (e instanceof LoginThrottledException) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            body = new ErrorResponse(
+                    new CustomException("Too many login attempts, try again later", ErrorCode.Overloaded)
+            );
+        } else {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            body = new ErrorResponse(
+                    new CustomException("Wrong credentials!", ErrorCode.WrongCredentials)
+            );
+        }
 
         objectMapper.writeValue(response.getWriter(), body);
     }
@@ -84,12 +94,9 @@ public class AuthFilter {
 
     private Authentication authConverter(HttpServletRequest request) {
         try {
-            ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request);
-            Gson gson = new Gson();
-            UserLoginDTO userLoginDTO = gson.fromJson(requestWrapper.getReader(), UserLoginDTO.class);
-            User user = userService.getUserByUsername(userLoginDTO.getUsername());
-            return new UsernamePasswordAuthenticationToken(user.getId(), userLoginDTO.getPassword());
-        } catch (IOException | CustomException e) {
+            UserLoginDTO userLoginDTO = objectMapper.readValue(request.getInputStream(), UserLoginDTO.class);
+            return UsernamePasswordAuthenticationToken.unauthenticated(userLoginDTO.getUsername(), userLoginDTO.getPassword());
+        } catch (IOException e) {
             throw new AuthenticationServiceException("Wrong credentials!");
         }
     }
@@ -0,0 +1,79 @@
+package bg.tuvarna.devicebackend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the BCrypt cost on startup by timing hashes on the current hardware: the highest cost
+ * between min and max whose hash still fits the target latency. A fixed cost skips calibration.
+ */
+@Component
+public class BcryptCostCalibrator {
+    private static final Logger logger = LoggerFactory.getLogger(BcryptCostCalibrator.class);
+    private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+    private final int cost;
+
+    public BcryptCostCalibrator(
+            @Value("${security.bcrypt.cost:0}") int fixedCost,
+            @Value("${security.bcrypt.target-ms:250}") long targetMillis,
+            @Value("${security.bcrypt.min-cost:8}") int minCost,
+            @Value("${security.bcrypt.max-cost:14}") int maxCost
+    ) {
+        if (fixedCost > 0) {
+            this.cost = fixedCost;
+        } else {
+            this.cost = calibrate(targetMillis, Math.max(4, minCost), Math.min(31, Math.max(minCost, maxCost)));
+        }
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    /**
+     * Only upgrades hashes. Nodes on different hardware may calibrate to different costs, and
+     * downgrading as well would rewrite a hash back and forth as logins land on either node.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        int storedCost = costOf(encodedPassword);
+        return storedCost > 0 && storedCost < cost;
+    }
+
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int calibrate(long targetMillis, int minCost, int maxCost) {
+        hash(minCost);
+
+        int selected = minCost;
+        long elapsed = hash(minCost);
+        while (selected < maxCost && elapsed * 2 <= targetMillis) {
+            elapsed = hash(selected + 1);
+            if (elapsed > targetMillis) {
+                break;
+            }
+            selected++;
+        }
+
+        logger.info("Calibrated BCrypt cost {} for a {} ms target", selected, targetMillis);
+        return selected;
+    }
+
+    private static long hash(int cost) {
+        long start = System.nanoTime();
+        BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(cost));
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
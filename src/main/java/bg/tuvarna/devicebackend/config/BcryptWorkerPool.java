@@ -0,0 +1,105 @@
+package bg.tuvarna.devicebackend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs BCrypt verification on a fixed number of worker threads with a bounded queue,
+ * so a burst of logins is rejected early instead of occupying every servlet thread.
+ */
+@Component
+public class BcryptWorkerPool {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer verifyTimer;
+    private final Timer queueWaitTimer;
+
+    public BcryptWorkerPool(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${auth.bcrypt.threads:0}") int threads,
+            @Value("${auth.bcrypt.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.bcrypt.timeout-ms:2000}") long timeoutMillis
+    ) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("bcrypt-");
+        threadFactory.setDaemon(true);
+
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.verifyTimer = Timer.builder("auth.bcrypt.verify")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.bcrypt.queue.wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("auth.bcrypt.queue.size", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        Future<Boolean> result;
+        try {
+            long submittedAt = System.nanoTime();
+            result = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return verifyTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+            });
+        } catch (RejectedExecutionException e) {
+            throw new LoginThrottledException("Too many concurrent logins");
+        }
+
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new LoginThrottledException("Password verification timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Password verification interrupted", e);
+        } catch (ExecutionException e) {
+            throw new AuthenticationServiceException("Password verification failed", e.getCause());
+        }
+    }
+
+    /**
+     * Runs background work such as rehashing only while the queue is at most half full,
+     * so it never competes with logins for the remaining slots.
+     */
+    public boolean tryExecute(Runnable task) {
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        if (queue.size() > queue.remainingCapacity()) {
+            return false;
+        }
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,177 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.enums.RequestClass;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of connections in use with a fair semaphore instead of relying on the
+ * request thread count, which is effectively unbounded with virtual threads. A caller that
+ * cannot get a permit within the timeout fails fast instead of queueing inside the pool.
+ * <p>
+ * Requests of a {@link RequestClass} with its own partition first take a permit from that
+ * partition, so one class of traffic cannot hold every connection. Work outside a request
+ * (schedulers, event delivery) only counts against the overall limit.
+ * <p>
+ * {@link #getAcquireWaitNanos} is the saturation signal for admission control. It includes the
+ * time queued in the partitions of the signalling classes, whose partitions fill up when the
+ * database slows down, but not in the others, whose small shares are meant to queue.
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+    private final Bulkhead global;
+    private final Map<RequestClass, Bulkhead> partitions;
+    private final Set<RequestClass> signallingClasses;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+
+    public BoundedDataSource(DataSource targetDataSource, Bulkhead.Limits limits, Map<RequestClass, Bulkhead.Limits> partitionLimits) {
+        this(targetDataSource, limits, partitionLimits, partitionLimits.keySet());
+    }
+
+    public BoundedDataSource(
+            DataSource targetDataSource,
+            Bulkhead.Limits limits,
+            Map<RequestClass, Bulkhead.Limits> partitionLimits,
+            Set<RequestClass> signallingClasses
+    ) {
+        super(targetDataSource);
+        this.signallingClasses = Set.copyOf(signallingClasses);
+        this.global = new Bulkhead("all requests", limits);
+        this.partitions = new EnumMap<>(RequestClass.class);
+        partitionLimits.forEach((requestClass, partition) ->
+                partitions.put(requestClass, new Bulkhead(requestClass.name().toLowerCase(Locale.ROOT) + " requests", partition))
+        );
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Bulkhead partition = acquire();
+        try {
+            return bounded(super.getConnection(), partition);
+        } catch (SQLException | RuntimeException e) {
+            release(partition);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Bulkhead partition = acquire();
+        try {
+            return bounded(super.getConnection(username, password), partition);
+        } catch (SQLException | RuntimeException e) {
+            release(partition);
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return global.getMaxConcurrency();
+    }
+
+    public int getActive() {
+        return global.getActive();
+    }
+
+    public int getWaiting() {
+        return global.getWaiting();
+    }
+
+    /**
+     * Number of connection requests so far, including those that timed out. Requests turned away
+     * by the partition of a class that does not signal saturation are left out.
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Total time callers have spent waiting for permits: the overall limit for everyone, plus the
+     * partition for classes that signal saturation.
+     */
+    public long getAcquireWaitNanos() {
+        return acquireWaitNanos.sum();
+    }
+
+    public Map<RequestClass, Bulkhead> getPartitions() {
+        return partitions;
+    }
+
+    private Bulkhead acquire() throws SQLException {
+        RequestClass requestClass = RequestClassFilter.current();
+        Bulkhead partition = requestClass == null ? null : partitions.get(requestClass);
+        boolean signalsPartitionWait = partition != null && signallingClasses.contains(requestClass);
+        long started = System.nanoTime();
+        if (partition != null) {
+            try {
+                partition.acquire();
+            } catch (SQLException e) {
+                if (signalsPartitionWait) {
+                    recordWait(started);
+                }
+                throw e;
+            }
+        }
+        long globalStarted = signalsPartitionWait ? started : System.nanoTime();
+        try {
+            global.acquire();
+        } catch (SQLException e) {
+            if (partition != null) {
+                partition.release();
+            }
+            throw e;
+        } finally {
+            recordWait(globalStarted);
+        }
+        return partition;
+    }
+
+    private void recordWait(long started) {
+        acquisitions.increment();
+        acquireWaitNanos.add(System.nanoTime() - started);
+    }
+
+    private void release(Bulkhead partition) {
+        global.release();
+        if (partition != null) {
+            partition.release();
+        }
+    }
+
+    private Connection bounded(Connection connection, Bulkhead partition) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            release(partition);
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                }
+        );
+    }
+}
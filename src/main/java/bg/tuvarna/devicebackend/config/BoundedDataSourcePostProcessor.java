@@ -0,0 +1,101 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.enums.RequestClass;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps every {@link DataSource} bean in a {@link BoundedDataSource}. A
+ * {@link LazyConnectionDataSourceProxy} is left alone: it only opens a connection when a statement
+ * runs, so the pools behind it are bounded instead, each with its own limits (see {@link #bound}).
+ * The same goes for the {@link ReplicaRoutingDataSource}, which only picks one of those pools.
+ */
+public class BoundedDataSourcePostProcessor implements BeanPostProcessor, ApplicationListener<ApplicationReadyEvent> {
+    private final Bulkhead.Limits limits;
+    private final Map<RequestClass, Bulkhead.Limits> partitionLimits;
+    private final Set<RequestClass> signallingClasses;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<String, BoundedDataSource> dataSources = new ConcurrentHashMap<>();
+
+    public BoundedDataSourcePostProcessor(
+            Bulkhead.Limits limits,
+            Map<RequestClass, Bulkhead.Limits> partitionLimits,
+            Set<RequestClass> signallingClasses,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this.limits = limits;
+        this.partitionLimits = partitionLimits;
+        this.signallingClasses = signallingClasses;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource
+                && !(bean instanceof BoundedDataSource)
+                && !(bean instanceof LazyConnectionDataSourceProxy)
+                && !(bean instanceof ReplicaRoutingDataSource)) {
+            return bound(beanName, dataSource);
+        }
+        return bean;
+    }
+
+    /**
+     * Bounds a physical pool that is not a bean of its own, such as the primary and replica pools
+     * behind the read/write routing.
+     */
+    public BoundedDataSource bound(String name, DataSource dataSource) {
+        BoundedDataSource bounded = new BoundedDataSource(dataSource, limits, partitionLimits, signallingClasses);
+        dataSources.put(name, bounded);
+        return bounded;
+    }
+
+    /**
+     * The bounded pools by name. The view is live, pools bounded later show up in it.
+     */
+    public Collection<BoundedDataSource> getDataSources() {
+        return Collections.unmodifiableCollection(dataSources.values());
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        dataSources.forEach((pool, dataSource) -> {
+            Gauge.builder("db.concurrency.active", dataSource, BoundedDataSource::getActive).tag("pool", pool).register(registry);
+            Gauge.builder("db.concurrency.waiting", dataSource, BoundedDataSource::getWaiting).tag("pool", pool).register(registry);
+            Gauge.builder("db.concurrency.max", dataSource, BoundedDataSource::getMaxConcurrency).tag("pool", pool).register(registry);
+            dataSource.getPartitions().forEach((requestClass, bulkhead) -> bindBulkhead(registry, pool, requestClass, bulkhead));
+        });
+    }
+
+    private static void bindBulkhead(MeterRegistry registry, String pool, RequestClass requestClass, Bulkhead bulkhead) {
+        Tags tags = Tags.of("pool", pool, "class", requestClass.name().toLowerCase(Locale.ROOT));
+        Gauge.builder("db.bulkhead.active", bulkhead, Bulkhead::getActive).tags(tags).register(registry);
+        Gauge.builder("db.bulkhead.waiting", bulkhead, Bulkhead::getWaiting).tags(tags).register(registry);
+        Gauge.builder("db.bulkhead.max", bulkhead, Bulkhead::getMaxConcurrency).tags(tags).register(registry);
+        FunctionCounter.builder("db.bulkhead.rejected", bulkhead, Bulkhead::getRejections).tags(tags).register(registry);
+        FunctionTimer.builder("db.bulkhead.acquire", bulkhead, Bulkhead::getAcquisitions, Bulkhead::getAcquireWaitNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .register(registry);
+    }
+}
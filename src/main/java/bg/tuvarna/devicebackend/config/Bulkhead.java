@@ -0,0 +1,86 @@
+package bg.tuvarna.devicebackend.config;
+
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fair semaphore with an acquire timeout and counters for how often and how long callers waited.
+ */
+public class Bulkhead {
+    private final String name;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMillis;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public Bulkhead(String name, Limits limits) {
+        this.name = name;
+        this.permits = new Semaphore(limits.maxConcurrency(), true);
+        this.maxConcurrency = limits.maxConcurrency();
+        this.acquireTimeoutMillis = limits.acquireTimeoutMillis();
+    }
+
+    public void acquire() throws SQLException {
+        long started = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            acquisitions.increment();
+            acquireWaitNanos.add(System.nanoTime() - started);
+            if (!acquired) {
+                rejections.increment();
+                throw new DatabaseBusyException(
+                        "Database concurrency limit of " + maxConcurrency + " for " + name
+                                + " reached, waited " + acquireTimeoutMillis + " ms"
+                );
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseBusyException("Interrupted while waiting for a database permit", e);
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Number of permit requests so far, including those that timed out.
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Total time callers have spent waiting for a permit.
+     */
+    public long getAcquireWaitNanos() {
+        return acquireWaitNanos.sum();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public record Limits(int maxConcurrency, long acquireTimeoutMillis) {
+    }
+}
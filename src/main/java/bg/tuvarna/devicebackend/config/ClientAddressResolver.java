@@ -0,0 +1,85 @@
+package bg.tuvarna.devicebackend.config;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves the address a request came from for per-client limits. The servlet remote address
+ * cannot be used directly: with {@code server.forward-headers-strategy=framework} it is taken
+ * from {@code X-Forwarded-For}, which any client can set. Instead this starts from the socket
+ * peer and only walks {@code X-Forwarded-For} (right to left) while the hop is a configured
+ * trusted proxy, so the result is the first address no trusted proxy vouches for.
+ */
+public class ClientAddressResolver {
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public ClientAddressResolver(List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String address = socketPeer(request);
+        if (!isTrusted(address)) {
+            return address;
+        }
+
+        List<String> hops = forwardedFor(request);
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            address = hops.get(i);
+            if (!isTrusted(address)) {
+                return address;
+            }
+        }
+        return address;
+    }
+
+    /**
+     * The remote address of the innermost request, before any wrapper applied forwarded headers.
+     */
+    private static String socketPeer(ServletRequest request) {
+        while (request instanceof ServletRequestWrapper wrapper) {
+            request = wrapper.getRequest();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static List<String> forwardedFor(HttpServletRequest request) {
+        List<String> hops = new ArrayList<>();
+        for (String header : Collections.list(request.getHeaders(FORWARDED_FOR))) {
+            for (String hop : header.split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        return hops;
+    }
+
+    private boolean isTrusted(String address) {
+        if (address == null || trustedProxies.isEmpty()) {
+            return false;
+        }
+        for (IpAddressMatcher proxy : trustedProxies) {
+            try {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
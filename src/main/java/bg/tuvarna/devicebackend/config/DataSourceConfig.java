@@ -0,0 +1,102 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.enums.RequestClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Configuration
+public class DataSourceConfig {
+    @Bean
+    @ConditionalOnProperty(name = "db.max-concurrency")
+    public static BoundedDataSourcePostProcessor boundedDataSourcePostProcessor(
+            Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        long acquireTimeoutMillis = environment.getProperty("db.acquire-timeout-ms", Long.class, 2000L);
+        Map<RequestClass, Bulkhead.Limits> partitions = new EnumMap<>(RequestClass.class);
+        Set<RequestClass> signallingClasses = EnumSet.noneOf(RequestClass.class);
+        for (RequestClass requestClass : RequestClass.values()) {
+            String prefix = "db.bulkhead." + requestClass.name().toLowerCase(Locale.ROOT);
+            Integer maxConcurrency = environment.getProperty(prefix + ".max-concurrency", Integer.class);
+            if (maxConcurrency != null) {
+                partitions.put(requestClass, new Bulkhead.Limits(
+                        maxConcurrency,
+                        environment.getProperty(prefix + ".acquire-timeout-ms", Long.class, acquireTimeoutMillis)
+                ));
+                if (environment.getProperty(prefix + ".signals-saturation", Boolean.class, true)) {
+                    signallingClasses.add(requestClass);
+                }
+            }
+        }
+        return new BoundedDataSourcePostProcessor(
+                new Bulkhead.Limits(environment.getRequiredProperty("db.max-concurrency", Integer.class), acquireTimeoutMillis),
+                partitions,
+                signallingClasses,
+                meterRegistry
+        );
+    }
+
+    /**
+     * Public are the routes open to anonymous callers, user the self-service profile and device
+     * registration routes, admin the listings, searches, edits, snapshots and actuator.
+     */
+    @Bean
+    public RequestClassFilter requestClassFilter() {
+        return new RequestClassFilter(List.of(
+                new RequestClassFilter.ClassGroup(
+                        RequestClass.PUBLIC,
+                        new OrRequestMatcher(
+                                new AntPathRequestMatcher("/api/v1/users/login"),
+                                new AntPathRequestMatcher("/api/v1/users/registration"),
+                                new AntPathRequestMatcher("/api/v1/users/refresh"),
+                                new AntPathRequestMatcher("/api/v1/devices/exists/**"),
+                                new AntPathRequestMatcher("/api/v1/devices/anonymousDevice"),
+                                new AntPathRequestMatcher("/api/v1/passports/getBySerialId/*")
+                        )
+                ),
+                new RequestClassFilter.ClassGroup(
+                        RequestClass.USER,
+                        new OrRequestMatcher(
+                                new AntPathRequestMatcher("/api/v1/users/getUser", HttpMethod.GET.name()),
+                                new AntPathRequestMatcher("/api/v1/users/*", HttpMethod.PUT.name()),
+                                new AntPathRequestMatcher("/api/v1/users/*/changePassword", HttpMethod.PUT.name()),
+                                new AntPathRequestMatcher("/api/v1/devices", HttpMethod.POST.name())
+                        )
+                ),
+                new RequestClassFilter.ClassGroup(
+                        RequestClass.ADMIN,
+                        new OrRequestMatcher(
+                                new AntPathRequestMatcher("/api/v1/users"),
+                                new AntPathRequestMatcher("/api/v1/devices/**"),
+                                new AntPathRequestMatcher("/api/v1/passports/**"),
+                                new AntPathRequestMatcher("/api/v1/renovations/**"),
+                                new AntPathRequestMatcher("/api/v1/snapshots/**"),
+                                new AntPathRequestMatcher("/actuator/**")
+                        )
+                )
+        ));
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestClassFilter> requestClassFilterRegistration(RequestClassFilter requestClassFilter) {
+        FilterRegistrationBean<RequestClassFilter> registration = new FilterRegistrationBean<>(requestClassFilter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,16 @@
+package bg.tuvarna.devicebackend.config;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * A {@link Bulkhead} had no permit within its timeout. The database itself may be fine.
+ */
+public class DatabaseBusyException extends SQLTransientConnectionException {
+    public DatabaseBusyException(String message) {
+        super(message);
+    }
+
+    public DatabaseBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
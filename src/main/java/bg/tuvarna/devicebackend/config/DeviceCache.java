@@ -0,0 +1,157 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
+import bg.tuvarna.devicebackend.models.events.DeviceDeletedEvent;
+import bg.tuvarna.devicebackend.models.events.DeviceRegisteredEvent;
+import bg.tuvarna.devicebackend.models.events.DeviceUpdatedEvent;
+import bg.tuvarna.devicebackend.models.events.PassportChangedEvent;
+import bg.tuvarna.devicebackend.models.events.RenovationAddedEvent;
+import bg.tuvarna.devicebackend.models.events.UserUpdatedEvent;
+import bg.tuvarna.devicebackend.utils.ExpiringCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Assembled {@link DeviceVO}s by serial number. Entries are dropped right after a change
+ * to the device, its renovations, its owner or its passport commits. A load that started
+ * before such an invalidation is not cached, so a slow reader cannot put stale data back;
+ * loads read from the primary, so a lagging replica cannot either.
+ */
+@Component
+public class DeviceCache implements MeterBinder {
+    private static final String NAME = "devices";
+
+    private final ExpiringCache<String, DeviceVO> devices;
+    private final long ttlMillis;
+    private final AtomicLong invalidations = new AtomicLong();
+    // Puts share the lock, so an invalidation cannot fall between a put's stamp check and its insert.
+    private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+
+    public DeviceCache(
+            @Value("${device-cache.max-entries:10000}") int maxEntries,
+            @Value("${device-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.devices = new ExpiringCache<>(maxEntries);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public DeviceVO get(String serialNumber) {
+        return devices.get(serialNumber);
+    }
+
+    /**
+     * Taken before loading; pass it back to {@link #put} so the result is only cached if
+     * nothing was invalidated in between.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public void put(DeviceVO device, long stamp) {
+        Lock lock = invalidationLock.readLock();
+        lock.lock();
+        try {
+            if (invalidations.get() == stamp) {
+                devices.put(device.serialNumber(), device, System.currentTimeMillis() + ttlMillis);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads the device on the primary and caches it unless it was invalidated meanwhile.
+     */
+    public DeviceVO load(String serialNumber, Supplier<DeviceVO> loader) {
+        DeviceVO cached = get(serialNumber);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamp();
+        DeviceVO device = ReplicaRoutingDataSource.readFromPrimary(loader);
+        put(device, stamp);
+        return device;
+    }
+
+    public void invalidate(String serialNumber) {
+        Lock lock = invalidationLock.writeLock();
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            devices.invalidate(serialNumber);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        Lock lock = invalidationLock.writeLock();
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            devices.invalidateAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        invalidate(event.serialNumber());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeviceUpdated(DeviceUpdatedEvent event) {
+        invalidate(event.serialNumber());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeviceDeleted(DeviceDeletedEvent event) {
+        invalidate(event.serialNumber());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRenovationAdded(RenovationAddedEvent event) {
+        invalidate(event.deviceSerialNumber());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        event.deviceSerialNumbers().forEach(this::invalidate);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPassportChanged(PassportChangedEvent event) {
+        invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", devices, ExpiringCache::hitCount)
+                .tag("cache", NAME)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", devices, ExpiringCache::missCount)
+                .tag("cache", NAME)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", devices, ExpiringCache::evictionCount)
+                .tag("cache", NAME)
+                .register(registry);
+        Gauge.builder("cache.size", devices, ExpiringCache::size)
+                .tag("cache", NAME)
+                .register(registry);
+    }
+}
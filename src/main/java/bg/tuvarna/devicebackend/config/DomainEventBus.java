@@ -0,0 +1,129 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.events.DomainEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands committed domain events to subscribers without making the publishing request wait.
+ * Every subscriber has a bounded queue and one delivery thread that drains it in batches,
+ * so a slow subscriber only falls behind itself. When a queue is full the event is dropped
+ * for that subscriber and counted.
+ */
+public class DomainEventBus implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private final List<Channel<?>> channels;
+    private final ExecutorService executor;
+
+    public DomainEventBus(
+            List<DomainEventSubscriber<?>> subscribers,
+            MeterRegistry meterRegistry,
+            int queueCapacity,
+            int batchSize
+    ) {
+        this.channels = subscribers.stream()
+                .<Channel<?>>map(subscriber -> new Channel<>(subscriber, meterRegistry, queueCapacity, batchSize))
+                .toList();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("domain-events-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, channels.size()), threadFactory);
+        channels.forEach(executor::execute);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void publish(DomainEvent event) {
+        long now = System.nanoTime();
+        for (Channel<?> channel : channels) {
+            channel.offer(event, now);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private record Envelope(DomainEvent event, long enqueuedAt) {
+    }
+
+    private static final class Channel<E extends DomainEvent> implements Runnable {
+        private final DomainEventSubscriber<E> subscriber;
+        private final BlockingQueue<Envelope> queue;
+        private final int batchSize;
+        private final Timer lag;
+        private final Counter delivered;
+        private final Counter dropped;
+        private final Counter failed;
+
+        Channel(DomainEventSubscriber<E> subscriber, MeterRegistry meterRegistry, int queueCapacity, int batchSize) {
+            this.subscriber = subscriber;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.batchSize = batchSize;
+
+            String name = subscriber.name();
+            Gauge.builder("events.queue.size", queue, BlockingQueue::size)
+                    .tag("subscriber", name)
+                    .register(meterRegistry);
+            this.lag = Timer.builder("events.delivery.lag")
+                    .tag("subscriber", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.delivered = Counter.builder("events.delivered").tag("subscriber", name).register(meterRegistry);
+            this.dropped = Counter.builder("events.dropped").tag("subscriber", name).register(meterRegistry);
+            this.failed = Counter.builder("events.failed").tag("subscriber", name).register(meterRegistry);
+        }
+
+        void offer(DomainEvent event, long now) {
+            if (subscriber.eventType().isInstance(event) && !queue.offer(new Envelope(event, now))) {
+                dropped.increment();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Envelope> batch = new ArrayList<>(batchSize);
+            List<E> events = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                queue.drainTo(batch, batchSize - 1);
+
+                long now = System.nanoTime();
+                for (Envelope envelope : batch) {
+                    lag.record(now - envelope.enqueuedAt(), TimeUnit.NANOSECONDS);
+                    events.add(subscriber.eventType().cast(envelope.event()));
+                }
+                try {
+                    subscriber.onEvents(events);
+                    delivered.increment(events.size());
+                } catch (RuntimeException e) {
+                    failed.increment(events.size());
+                    logger.warn("Subscriber {} failed on a batch of {} events", subscriber.name(), events.size(), e);
+                }
+                batch.clear();
+                events.clear();
+            }
+        }
+    }
+}
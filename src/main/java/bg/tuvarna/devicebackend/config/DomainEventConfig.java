@@ -0,0 +1,20 @@
+package bg.tuvarna.devicebackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DomainEventConfig {
+    @Bean(destroyMethod = "close")
+    public DomainEventBus domainEventBus(
+            ObjectProvider<DomainEventSubscriber<?>> subscribers,
+            MeterRegistry meterRegistry,
+            @Value("${events.queue-capacity:10000}") int queueCapacity,
+            @Value("${events.batch-size:100}") int batchSize
+    ) {
+        return new DomainEventBus(subscribers.orderedStream().toList(), meterRegistry, queueCapacity, batchSize);
+    }
+}
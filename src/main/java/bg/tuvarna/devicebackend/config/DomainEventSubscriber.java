@@ -0,0 +1,19 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.events.DomainEvent;
+
+import java.util.List;
+
+/**
+ * Receives batches of committed domain events on the subscriber's own delivery thread.
+ * A batch that throws is counted as failed and not redelivered.
+ */
+public interface DomainEventSubscriber<E extends DomainEvent> {
+    Class<E> eventType();
+
+    void onEvents(List<E> events);
+
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
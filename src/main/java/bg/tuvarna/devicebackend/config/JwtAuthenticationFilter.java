@@ -1,6 +1,7 @@
 package bg.tuvarna.devicebackend.config;
 
-import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,6 +21,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsServiceConfig userDetailsService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     @Override
     protected void doFilterInternal(
@@ -29,7 +31,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String id;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -38,16 +39,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            if (!jwtService.isTokenExpired(jwt)) {
-                id = jwtService.extractId(jwt);
+            final Claims claims = jwtService.parseToken(jwt);
 
-                if (id != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    User user = userDetailsService.loadUserByUsername(id);
-                    if (jwtService.isTokenValid(jwt, user)) {
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
+            if (
+                    claims != null && jwtService.isAccessToken(claims) && claims.getSubject() != null
+                    && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !tokenRevocationRegistry.isRevoked(Long.parseLong(claims.getSubject()), claims.getIssuedAt())
+            ) {
+                UserPrincipal principal = userDetailsService.loadUserByUsername(claims.getSubject());
+                if (jwtService.isTokenValid(claims, principal)) {
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
             filterChain.doFilter(request, response);
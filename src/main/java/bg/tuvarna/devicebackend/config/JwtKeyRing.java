@@ -0,0 +1,156 @@
+package bg.tuvarna.devicebackend.config;
+
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Signing keys for JWTs, derived from one master secret per rotation epoch.
+ * Every node configured with the same master secret derives the same key for the same epoch,
+ * so replicas verify each other's tokens and rotate in step without sharing any state.
+ * The key id ({@code kid}) of a token is its epoch number.
+ */
+@Component
+public class JwtKeyRing {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final String KEYSTORE_ALIAS = "jwt-master";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final byte[] masterSecret;
+    private final long rotationMillis;
+    private final long overlapEpochs;
+    private final Map<String, SecretKey> keys = new ConcurrentHashMap<>();
+    private volatile SigningKey signingKey;
+
+    public JwtKeyRing(
+            @Value("${jwt.secret:}") String secret,
+            @Value("${jwt.keystore.path:}") String keystorePath,
+            @Value("${jwt.keystore.password:changeit}") String keystorePassword,
+            @Value("${jwt.key-rotation-hours:24}") long rotationHours,
+            @Value("${jwt.key-overlap-hours:360}") long overlapHours
+    ) {
+        this.masterSecret = loadMasterSecret(secret, keystorePath, keystorePassword);
+        this.rotationMillis = rotationHours * 3_600_000L;
+        this.overlapEpochs = (overlapHours + rotationHours - 1) / rotationHours;
+        rotate();
+    }
+
+    public SigningKey signingKey() {
+        return signingKey;
+    }
+
+    public SecretKey verificationKey(String kid) {
+        SecretKey key = kid != null ? keys.get(kid) : null;
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.key-rotation-check-ms:60000}")
+    public void rotate() {
+        long current = System.currentTimeMillis() / rotationMillis;
+
+        for (long epoch = current - overlapEpochs; epoch <= current + 1; epoch++) {
+            keys.computeIfAbsent(Long.toString(epoch), this::deriveKey);
+        }
+
+        String activeKid = Long.toString(current);
+        if (signingKey == null || !signingKey.kid().equals(activeKid)) {
+            signingKey = new SigningKey(activeKid, keys.get(activeKid));
+            logger.info("JWT signing key rotated to kid {}", activeKid);
+        }
+
+        keys.keySet().removeIf(kid -> {
+            long epoch = Long.parseLong(kid);
+            return epoch < current - overlapEpochs || epoch > current + 1;
+        });
+    }
+
+    private SecretKey deriveKey(String kid) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(masterSecret, "HmacSHA256"));
+            return Keys.hmacShaKeyFor(mac.doFinal(("jwt-signing-key:" + kid).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive JWT signing key", e);
+        }
+    }
+
+    private static byte[] loadMasterSecret(String secret, String keystorePath, String keystorePassword) {
+        if (secret != null && !secret.isBlank()) {
+            byte[] decoded = Base64.getDecoder().decode(secret.trim());
+            if (decoded.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("jwt.secret must be at least " + MIN_SECRET_BYTES + " bytes (base64 encoded)");
+            }
+            return decoded;
+        }
+
+        if (keystorePath != null && !keystorePath.isBlank()) {
+            try {
+                return loadOrCreateKeystore(Path.of(keystorePath), keystorePassword.toCharArray());
+            } catch (IOException | GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot load JWT keystore " + keystorePath, e);
+            }
+        }
+
+        logger.warn("No jwt.secret or jwt.keystore.path configured, tokens will not survive a restart or work across nodes");
+        return randomSecret();
+    }
+
+    private static byte[] loadOrCreateKeystore(Path path, char[] password) throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        KeyStore.PasswordProtection protection = new KeyStore.PasswordProtection(password);
+
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                keyStore.load(in, password);
+            }
+            if (keyStore.getEntry(KEYSTORE_ALIAS, protection) instanceof KeyStore.SecretKeyEntry entry) {
+                return entry.getSecretKey().getEncoded();
+            }
+            throw new IllegalStateException("Keystore " + path + " has no '" + KEYSTORE_ALIAS + "' secret key");
+        }
+
+        byte[] secret = randomSecret();
+        keyStore.load(null, password);
+        keyStore.setEntry(KEYSTORE_ALIAS, new KeyStore.SecretKeyEntry(new SecretKeySpec(secret, "HmacSHA256")), protection);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, password);
+        }
+        logger.info("Created JWT keystore {}", path);
+        return secret;
+    }
+
+    private static byte[] randomSecret() {
+        byte[] secret = new byte[64];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    public record SigningKey(String kid, SecretKey key) {
+    }
+}
@@ -2,78 +2,242 @@ package bg.tuvarna.devicebackend.config;
 
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.TokenPairVO;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.utils.ExpiringCache;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
-    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private static final String TOKEN_TYPE = "typ";
+    private static final String ACCESS_TOKEN = "access";
+    private static final String REFRESH_TOKEN = "refresh";
+
+    private final JwtKeyRing keyRing;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final JwtParser parser;
+    private final ExpiringCache<ByteBuffer, Claims> verifiedTokens;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+    private final Timer cachedParseTimer;
+    private final Timer verifiedParseTimer;
+
+    public JwtService(
+            JwtKeyRing keyRing,
+            TokenRevocationRegistry revocationRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.cache.max-entries:10000}") int maxCachedTokens,
+            @Value("${jwt.access-token-minutes:15}") long accessTokenMinutes,
+            @Value("${jwt.refresh-token-days:14}") long refreshTokenDays
+    ) {
+        this.keyRing = keyRing;
+        this.revocationRegistry = revocationRegistry;
+        this.accessTokenTtl = Duration.ofMinutes(accessTokenMinutes);
+        this.refreshTokenTtl = Duration.ofDays(refreshTokenDays);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyRing.verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        this.verifiedTokens = new ExpiringCache<>(maxCachedTokens);
+        this.cachedParseTimer = Timer.builder("auth.jwt.parse")
+                .tag("result", "cached")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.verifiedParseTimer = Timer.builder("auth.jwt.parse")
+                .tag("result", "verified")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     public String extractId(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        final Claims claims = parseToken(token);
+        return claims != null ? claimsResolver.apply(claims) : null;
     }
 
     public String generateToken(User user) {
-        return generateToken(new HashMap<>(), user);
+        return generateToken(new HashMap<>(), user.getId());
     }
 
-    public String generateToken(Map<String, Object> extraClaims, User user) {
-        return Jwts
-                .builder()
-                .setClaims(extraClaims)
-                .setSubject(user.getId().toString())
-                .setIssuedAt(new Date())
-                .setExpiration(Date.from(Instant.now().plus(2L, ChronoUnit.HOURS)))//1 hour
-                .signWith(key)
-                .compact();
+    public String generateToken(Long userId) {
+        return generateToken(new HashMap<>(), userId);
     }
 
-    public boolean isTokenValid(String token, User user) {
-        final long id = Long.parseLong(extractId(token));
-        return (id == user.getId()) && !isTokenExpired(token);
+    public String generateToken(Map<String, Object> extraClaims, Long userId) {
+        return buildToken(extraClaims, userId, ACCESS_TOKEN, accessTokenTtl);
     }
 
-    public boolean isTokenExpired(String token) {
-        return extractExpiration(token) == null;
+    public String generateRefreshToken(Long userId) {
+        return buildToken(new HashMap<>(), userId, REFRESH_TOKEN, refreshTokenTtl);
     }
 
-    private Date extractExpiration(String token) {
+    /**
+     * Exchanges a refresh token for a new token pair. Each refresh token can be exchanged once;
+     * presenting one again means it was copied, so every token of that user is revoked.
+     */
+    public TokenPairVO refresh(String refreshToken) {
+        Claims claims;
         try {
-            return extractClaim(token, Claims::getExpiration);
-        } catch (ExpiredJwtException e) {
-            return null;
+            claims = parseToken(refreshToken);
+        } catch (RuntimeException e) {
+            claims = null;
+        }
+
+        if (
+                claims == null || !REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE)) || claims.getSubject() == null
+                || claims.getId() == null
+                || revocationRegistry.isRevoked(Long.parseLong(claims.getSubject()), claims.getIssuedAt())
+        ) {
+            throw new CustomException("Invalid refresh token", ErrorCode.WrongCredentials);
+        }
+
+        Long userId = Long.valueOf(claims.getSubject());
+        if (!revocationRegistry.markRefreshTokenUsed(claims.getId(), userId, claims.getExpiration())) {
+            logger.warn("Refresh token reused for user {}, revoking all of their tokens", userId);
+            revocationRegistry.revokeAll(userId);
+            throw new CustomException("Invalid refresh token", ErrorCode.WrongCredentials);
+        }
+        return new TokenPairVO(generateToken(userId), generateRefreshToken(userId));
+    }
+
+    public boolean isAccessToken(Claims claims) {
+        return !REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE));
+    }
+
+    /**
+     * Verifies the token signature once and returns its claims, or {@code null} if the token has expired.
+     * Verified claims are cached by the SHA-256 of the token until the token's own expiry, so repeated
+     * requests with the same bearer token skip the HMAC check and JSON decoding. The returned claims are
+     * shared between requests and therefore read-only.
+     */
+    public Claims parseToken(String token) {
+        long start = System.nanoTime();
+        ByteBuffer tokenHash = hash(token);
+        Claims claims = verifiedTokens.get(tokenHash);
+        if (claims != null) {
+            cachedParseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        }
+
+        try {
+            claims = readOnly(extractAllClaims(token));
+            if (claims != null && claims.getExpiration() != null) {
+                verifiedTokens.put(tokenHash, claims, claims.getExpiration().getTime());
+            }
+            return claims;
+        } finally {
+            verifiedParseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    public boolean isTokenValid(String token, User user) {
+        final Claims claims = parseToken(token);
+        return claims != null && isTokenValid(claims, user.getId());
+    }
+
+    public boolean isTokenValid(Claims claims, UserPrincipal principal) {
+        return isTokenValid(claims, principal.id());
+    }
+
+    private boolean isTokenValid(Claims claims, long userId) {
+        final long id = Long.parseLong(claims.getSubject());
+        return (id == userId) && claims.getExpiration().after(new Date());
+    }
+
+    public boolean isTokenExpired(String token) {
+        return parseToken(token) == null;
+    }
+
+    private String buildToken(Map<String, Object> extraClaims, Long userId, String type, Duration ttl) {
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+        Instant now = Instant.now();
+        return Jwts
+                .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setClaims(extraClaims)
+                .setId(REFRESH_TOKEN.equals(type) ? UUID.randomUUID().toString() : null)
+                .claim(TOKEN_TYPE, type)
+                .setSubject(userId.toString())
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plus(ttl)))
+                .signWith(signingKey.key())
+                .compact();
+    }
+
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts
-                    .parserBuilder()
-                    .setSigningKey(key)
-                    .build()
+            return parser
                     .parseClaimsJws(token)
                     .getBody();
+        } catch (ExpiredJwtException e) {
+            return null;
         } catch (MalformedJwtException e) {
             logger.error("Not valid JWT token");
             throw new CustomException("Not valid JWT token", ErrorCode.Failed);
         }
     }
-}
\ No newline at end of file
+
+    private static Claims readOnly(Claims claims) {
+        if (claims == null) {
+            return null;
+        }
+        Map<String, Object> view = Collections.unmodifiableMap(claims);
+        return (Claims) Proxy.newProxyInstance(
+                Claims.class.getClassLoader(),
+                new Class<?>[]{Claims.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set")) {
+                        throw new UnsupportedOperationException("Verified claims are read-only");
+                    }
+                    try {
+                        Object result = method.getDeclaringClass() == Map.class
+                                ? method.invoke(view, args)
+                                : method.invoke(claims, args);
+                        return result instanceof Date date ? new Date(date.getTime()) : result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                }
+        );
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
+import bg.tuvarna.devicebackend.services.UserService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class LoginAuthenticationProvider implements AuthenticationProvider {
+    private static final Logger logger = LoggerFactory.getLogger(LoginAuthenticationProvider.class);
+    private final UserService userService;
+    private final BcryptWorkerPool bcryptWorkerPool;
+    private final BcryptCostCalibrator bcryptCostCalibrator;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object password = authentication.getCredentials();
+        if (username == null || password == null) {
+            throw new BadCredentialsException("Wrong credentials!");
+        }
+
+        UserCredentials credentials;
+        try {
+            credentials = userService.getCredentialsByUsername(username);
+        } catch (CustomException e) {
+            throw new BadCredentialsException("Wrong credentials!");
+        }
+
+        if (credentials.password() == null || !bcryptWorkerPool.matches(password.toString(), credentials.password())) {
+            throw new BadCredentialsException("Wrong credentials!");
+        }
+
+        if (bcryptCostCalibrator.needsRehash(credentials.password())) {
+            String rawPassword = password.toString();
+            bcryptWorkerPool.tryExecute(() -> {
+                try {
+                    userService.rehashPassword(credentials.id(), credentials.password(), rawPassword);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not rehash password for user {}", credentials.id(), e);
+                }
+            });
+        }
+
+        UserPrincipal principal = credentials.toPrincipal();
+        UsernamePasswordAuthenticationToken result =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+        // The login response is built from these details, so the success handler needs no second lookup.
+        result.setDetails(credentials.toUserVO());
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
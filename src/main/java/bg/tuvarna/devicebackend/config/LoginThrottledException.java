@@ -0,0 +1,9 @@
+package bg.tuvarna.devicebackend.config;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+public class LoginThrottledException extends AuthenticationServiceException {
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package bg.tuvarna.devicebackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public HibernatePropertiesCustomizer requestQueryStatementInspector(RequestQueryStatistics requestQueryStatistics) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, requestQueryStatistics);
+    }
+
+    @Bean
+    public SmartInitializingSingleton requestQueryLoadListener(
+            EntityManagerFactory entityManagerFactory,
+            RequestQueryStatistics requestQueryStatistics
+    ) {
+        return () -> {
+            EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .requireService(EventListenerRegistry.class);
+            listeners.appendListeners(EventType.POST_LOAD, requestQueryStatistics);
+            listeners.appendListeners(EventType.INIT_COLLECTION, requestQueryStatistics);
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestQueryMetricsFilter> requestQueryMetricsFilterRegistration(
+            RequestQueryStatistics requestQueryStatistics,
+            MeterRegistry meterRegistry,
+            @Value("${query-budget.statements:25}") int statementBudget,
+            @Value("${query-budget.repeated-statement-limit:5}") int repeatedStatementLimit
+    ) {
+        FilterRegistrationBean<RequestQueryMetricsFilter> registration = new FilterRegistrationBean<>(
+                new RequestQueryMetricsFilter(requestQueryStatistics, meterRegistry, statementBudget, repeatedStatementLimit)
+        );
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 20);
+        return registration;
+    }
+}
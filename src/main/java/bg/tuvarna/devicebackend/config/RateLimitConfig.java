@@ -0,0 +1,61 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.utils.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+    @Bean
+    public RateLimitFilter rateLimitFilter(
+            ObjectMapper objectMapper,
+            @Value("${rate-limit.max-clients:100000}") int maxClients,
+            @Value("${rate-limit.trusted-proxies:}") List<String> trustedProxies,
+            @Value("${rate-limit.auth.capacity:10}") int authCapacity,
+            @Value("${rate-limit.auth.refill-per-minute:20}") double authRefillPerMinute,
+            @Value("${rate-limit.public.capacity:60}") int publicCapacity,
+            @Value("${rate-limit.public.refill-per-minute:120}") double publicRefillPerMinute
+    ) {
+        return new RateLimitFilter(
+                List.of(
+                        new RateLimitFilter.RouteGroup(
+                                "auth",
+                                new OrRequestMatcher(
+                                        new AntPathRequestMatcher("/api/v1/users/login"),
+                                        new AntPathRequestMatcher("/api/v1/users/registration"),
+                                        new AntPathRequestMatcher("/api/v1/users/refresh")
+                                ),
+                                new RateLimiter(authCapacity, authRefillPerMinute / 60, maxClients)
+                        ),
+                        new RateLimitFilter.RouteGroup(
+                                "public",
+                                new OrRequestMatcher(
+                                        new AntPathRequestMatcher("/api/v1/devices/exists/**"),
+                                        new AntPathRequestMatcher("/api/v1/devices/addAnonymousDevice"),
+                                        new AntPathRequestMatcher("/api/v1/passports/getBySerialId/*")
+                                ),
+                                new RateLimiter(publicCapacity, publicRefillPerMinute / 60, maxClients)
+                        )
+                ),
+                new ClientAddressResolver(trustedProxies),
+                objectMapper
+        );
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+}
@@ -0,0 +1,85 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
+import bg.tuvarna.devicebackend.utils.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+    private final List<RouteGroup> groups;
+    private final ClientAddressResolver clientAddressResolver;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(List<RouteGroup> groups, ClientAddressResolver clientAddressResolver, ObjectMapper objectMapper) {
+        this.groups = groups;
+        this.clientAddressResolver = clientAddressResolver;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteGroup group = findGroup(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = group.limiter().tryAcquire(clientAddressResolver.resolve(request), System.nanoTime());
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+        response.setContentType("application/json");
+        objectMapper.writeValue(
+                response.getWriter(),
+                new ErrorResponse(new CustomException("Too many requests, try again later", ErrorCode.RateLimited))
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RouteGroup group : groups) {
+            FunctionCounter.builder("rate_limit.requests.allowed", group.limiter(), RateLimiter::allowedCount)
+                    .tag("group", group.name())
+                    .register(registry);
+            FunctionCounter.builder("rate_limit.requests.rejected", group.limiter(), RateLimiter::rejectedCount)
+                    .tag("group", group.name())
+                    .register(registry);
+            Gauge.builder("rate_limit.buckets", group.limiter(), RateLimiter::size)
+                    .tag("group", group.name())
+                    .register(registry);
+        }
+    }
+
+    private RouteGroup findGroup(HttpServletRequest request) {
+        for (RouteGroup group : groups) {
+            if (group.matcher().matches(request)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    public record RouteGroup(String name, RequestMatcher matcher, RateLimiter limiter) {
+    }
+}
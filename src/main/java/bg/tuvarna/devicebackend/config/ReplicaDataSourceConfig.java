@@ -0,0 +1,112 @@
+package bg.tuvarna.devicebackend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active when {@code db.replica-urls} lists at least one JDBC url. Replicas share the
+ * primary's driver and, unless overridden, its credentials. With {@code db.max-concurrency}
+ * set, the primary and every replica pool get their own {@link BoundedDataSource}.
+ */
+@Configuration
+@ConditionalOnExpression("!'${db.replica-urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+    private final ObjectProvider<ReplicaRoutingDataSource> routingDataSource;
+
+    public ReplicaDataSourceConfig(ObjectProvider<ReplicaRoutingDataSource> routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    /**
+     * Closed by the container when the context shuts down, which closes every pool behind it.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<BoundedDataSourcePostProcessor> boundedDataSources,
+            @Value("${db.replica-urls}") String replicaUrls,
+            @Value("${db.replica-username:${spring.datasource.username:}}") String replicaUsername,
+            @Value("${db.replica-password:${spring.datasource.password:}}") String replicaPassword,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int primaryPoolSize,
+            @Value("${db.replica-pool-size:10}") int replicaPoolSize,
+            @Value("${db.read-your-writes-ms:5000}") long readYourWritesMillis
+    ) {
+        HikariDataSource primary = pool("primary", properties.determineDriverClassName(),
+                properties.determineUrl(), properties.determineUsername(), properties.determinePassword(), primaryPoolSize);
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        List<String> urls = Arrays.stream(replicaUrls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = pool("replica-" + i, properties.determineDriverClassName(),
+                    urls.get(i), replicaUsername, replicaPassword, replicaPoolSize);
+            replica.setReadOnly(true);
+            replica.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(new ReplicaRoutingDataSource.Replica(replica.getPoolName(), bounded(boundedDataSources, replica)));
+        }
+
+        return new ReplicaRoutingDataSource(bounded(boundedDataSources, primary), replicas, readYourWritesMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Reads fall back to the primary, so losing every replica is {@code DEGRADED} rather than
+     * down. {@code management.endpoint.health.status} ranks it between down and up and maps it to 200.
+     */
+    @Bean
+    public HealthIndicator replicasHealthIndicator(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return () -> {
+            Map<String, Boolean> status = replicaRoutingDataSource.replicaStatus();
+            Health.Builder builder = status.containsValue(true) ? Health.up() : Health.status("DEGRADED");
+            return builder.withDetails(Map.copyOf(status)).build();
+        };
+    }
+
+    @Scheduled(
+            fixedDelayString = "${db.replica-health-interval-ms:5000}",
+            initialDelayString = "${db.replica-health-interval-ms:5000}"
+    )
+    public void checkReplicas() {
+        routingDataSource.ifAvailable(dataSource -> dataSource.checkReplicas(1));
+    }
+
+    private static DataSource bounded(ObjectProvider<BoundedDataSourcePostProcessor> boundedDataSources, HikariDataSource pool) {
+        BoundedDataSourcePostProcessor postProcessor = boundedDataSources.getIfAvailable();
+        return postProcessor == null ? pool : postProcessor.bound(pool.getPoolName(), pool);
+    }
+
+    private static HikariDataSource pool(String name, String driver, String url, String username, String password, int size) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setDriverClassName(driver);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(size);
+        return dataSource;
+    }
+}
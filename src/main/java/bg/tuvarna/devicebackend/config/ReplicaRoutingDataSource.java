@@ -0,0 +1,198 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
+import bg.tuvarna.devicebackend.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to a healthy replica, round robin, and everything else to the
+ * primary. Reads fall back to the primary when no replica is healthy or a replica refuses a
+ * connection. After a write, reads in the same request and the writing user's reads for the
+ * read-your-writes window stay on the primary, so replication lag is not visible to them.
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the read-only flag is known when the connection is fetched.
+ * <p>
+ * The pools may be {@link BoundedDataSource}s. A replica that is only out of permits
+ * ({@link DatabaseBusyException}) is read around for that call but not marked down.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String WROTE_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".WROTE";
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long readYourWritesMillis;
+    private final ExpiringCache<Long, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long readYourWritesMillis) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.recentWriters = new ExpiringCache<>(100_000);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                recordWrite();
+            }
+            return primary.getConnection();
+        }
+
+        if (!mustReadFromPrimary()) {
+            Replica replica = nextHealthyReplica();
+            if (replica != null) {
+                try {
+                    return replica.dataSource().getConnection();
+                } catch (DatabaseBusyException e) {
+                    logger.debug("Replica {} is busy, reading from the primary", replica.name());
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Runs {@code reads} against the primary, for results that are kept beyond the request and
+     * so must not be behind the last commit. Connections already open are not affected.
+     */
+    public static <T> T readFromPrimary(Supplier<T> reads) {
+        Boolean outer = PRIMARY_READS.get();
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (outer == null) {
+                PRIMARY_READS.remove();
+            }
+        }
+    }
+
+    public void checkReplicas(int timeoutSeconds) {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection()) {
+                if (connection.isValid(timeoutSeconds)) {
+                    replica.markUp();
+                } else {
+                    replica.markDown(null);
+                }
+            } catch (DatabaseBusyException e) {
+                // Every permit is in use, so the replica is answering; keep its current status.
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    public Map<String, Boolean> replicaStatus() {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            status.put(replica.name(), replica.healthy().get());
+        }
+        return status;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            close(replica.dataSource());
+        }
+        close(primary);
+    }
+
+    private static void close(DataSource dataSource) throws Exception {
+        if (dataSource instanceof DelegatingDataSource delegating) {
+            close(delegating.getTargetDataSource());
+        } else if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy().get()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private boolean mustReadFromPrimary() {
+        if (PRIMARY_READS.get() != null) {
+            return true;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && attributes.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        Long userId = currentUserId();
+        return userId != null && recentWriters.get(userId) != null;
+    }
+
+    private void recordWrite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        Long userId = currentUserId();
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE, System.currentTimeMillis() + readYourWritesMillis);
+        }
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                ? principal.id()
+                : null;
+    }
+
+    public record Replica(String name, DataSource dataSource, AtomicBoolean healthy) {
+        public Replica(String name, DataSource dataSource) {
+            this(name, dataSource, new AtomicBoolean(true));
+        }
+
+        void markUp() {
+            if (healthy.compareAndSet(false, true)) {
+                logger.info("Replica {} is healthy again", name);
+            }
+        }
+
+        void markDown(SQLException cause) {
+            if (healthy.compareAndSet(true, false)) {
+                logger.warn("Replica {} is unavailable, reading from the primary", name, cause);
+            }
+        }
+    }
+}
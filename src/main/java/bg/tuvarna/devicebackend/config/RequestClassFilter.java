@@ -0,0 +1,56 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.enums.RequestClass;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs before the security filter chain and records the {@link RequestClass} of the current
+ * request for {@link BoundedDataSource}, so the queries made while authenticating count against
+ * the class too. The class comes from the first group whose matcher accepts the route, not from
+ * the caller: a signed-in admin checking whether a device exists is public traffic. Routes no
+ * group matches are user traffic.
+ */
+public class RequestClassFilter extends OncePerRequestFilter {
+    private static final ThreadLocal<RequestClass> CURRENT = new ThreadLocal<>();
+
+    private final List<ClassGroup> groups;
+
+    public RequestClassFilter(List<ClassGroup> groups) {
+        this.groups = groups;
+    }
+
+    public static RequestClass current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CURRENT.set(classify(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    public RequestClass classify(HttpServletRequest request) {
+        for (ClassGroup group : groups) {
+            if (group.matcher().matches(request)) {
+                return group.requestClass();
+            }
+        }
+        return RequestClass.USER;
+    }
+
+    public record ClassGroup(RequestClass requestClass, RequestMatcher matcher) {
+    }
+}
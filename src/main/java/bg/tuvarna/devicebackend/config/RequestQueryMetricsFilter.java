@@ -0,0 +1,101 @@
+package bg.tuvarna.devicebackend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+public class RequestQueryMetricsFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RequestQueryMetricsFilter.class);
+    private static final int LOGGED_SQL_LENGTH = 300;
+
+    private final RequestQueryStatistics statistics;
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+    private final int repeatedStatementLimit;
+
+    public RequestQueryMetricsFilter(
+            RequestQueryStatistics statistics,
+            MeterRegistry meterRegistry,
+            int statementBudget,
+            int repeatedStatementLimit
+    ) {
+        this.statistics = statistics;
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+        this.repeatedStatementLimit = repeatedStatementLimit;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        statistics.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryStatistics.Counts counts = statistics.end();
+            request.setAttribute(RequestQueryStatistics.COUNTS_ATTRIBUTE, counts);
+
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+            DistributionSummary.builder("hibernate.request.statements")
+                    .tag("uri", uri)
+                    .tag("method", request.getMethod())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(counts.statements());
+            DistributionSummary.builder("hibernate.request.entity.loads")
+                    .tag("uri", uri)
+                    .tag("method", request.getMethod())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(counts.entityLoads());
+            DistributionSummary.builder("hibernate.request.collection.fetches")
+                    .tag("uri", uri)
+                    .tag("method", request.getMethod())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(counts.collectionFetches());
+
+            checkBudget(request.getMethod(), uri, counts);
+        }
+    }
+
+    private void checkBudget(String method, String uri, RequestQueryStatistics.Counts counts) {
+        if (counts.statements() > statementBudget) {
+            budgetExceeded(method, uri, "statements");
+            logger.warn("{} {} ran {} statements (budget {}), {} entity loads, {} collection fetches",
+                    method, uri, counts.statements(), statementBudget, counts.entityLoads(), counts.collectionFetches());
+        }
+
+        RequestQueryStatistics.RepeatedStatement repeated = counts.mostRepeated();
+        if (repeated.executions() > repeatedStatementLimit) {
+            budgetExceeded(method, uri, "repeated_statement");
+            logger.warn("Possible N+1 in {} {}: statement ran {} times: {}",
+                    method, uri, repeated.executions(), abbreviate(repeated.sql()));
+        }
+    }
+
+    private void budgetExceeded(String method, String uri, String reason) {
+        Counter.builder("hibernate.request.budget.exceeded")
+                .tag("uri", uri)
+                .tag("method", method)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= LOGGED_SQL_LENGTH ? sql : sql.substring(0, LOGGED_SQL_LENGTH) + "...";
+    }
+}
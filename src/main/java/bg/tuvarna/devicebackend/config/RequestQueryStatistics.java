@@ -0,0 +1,98 @@
+package bg.tuvarna.devicebackend.config;
+
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements, entity loads and collection initializations issued by the
+ * current thread between {@link #begin()} and {@link #end()}. Hibernate's own statistics
+ * are global, so they cannot attribute queries to a single request.
+ */
+@Component
+public class RequestQueryStatistics implements StatementInspector, PostLoadEventListener, InitializeCollectionEventListener {
+    /**
+     * Request attribute under which {@link RequestQueryMetricsFilter} leaves the finished counts.
+     */
+    public static final String COUNTS_ATTRIBUTE = RequestQueryStatistics.class.getName() + ".counts";
+
+    private final ThreadLocal<Counts> current = new ThreadLocal<>();
+
+    public void begin() {
+        current.set(new Counts());
+    }
+
+    public Counts end() {
+        Counts counts = current.get();
+        current.remove();
+        return counts != null ? counts : new Counts();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.statements++;
+            counts.executions.merge(sql, 1, Integer::sum);
+        }
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.entityLoads++;
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.collectionFetches++;
+        }
+    }
+
+    public record RepeatedStatement(String sql, int executions) {
+    }
+
+    public static final class Counts {
+        private final Map<String, Integer> executions = new HashMap<>();
+        private int statements;
+        private int entityLoads;
+        private int collectionFetches;
+
+        public int statements() {
+            return statements;
+        }
+
+        public int entityLoads() {
+            return entityLoads;
+        }
+
+        public int collectionFetches() {
+            return collectionFetches;
+        }
+
+        /**
+         * The statement executed most often. The same SQL running once per row of an earlier
+         * result is what an N+1 looks like from here.
+         */
+        public RepeatedStatement mostRepeated() {
+            RepeatedStatement most = new RepeatedStatement(null, 0);
+            for (Map.Entry<String, Integer> entry : executions.entrySet()) {
+                if (entry.getValue() > most.executions()) {
+                    most = new RepeatedStatement(entry.getKey(), entry.getValue());
+                }
+            }
+            return most;
+        }
+    }
+}
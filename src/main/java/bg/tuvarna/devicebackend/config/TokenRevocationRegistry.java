@@ -0,0 +1,85 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.dtos.TokenRevocation;
+import bg.tuvarna.devicebackend.repositories.UsedRefreshTokenRepository;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user "tokens issued before" epochs. Only users that ever revoked their tokens have an entry,
+ * so checking a token is a single map lookup. The epochs are persisted in {@code users.tokens_valid_after},
+ * loaded on startup and re-synced periodically to pick up revocations made on other nodes.
+ * Epochs have the one second resolution of the JWT {@code iat} claim.
+ * <p>
+ * Exchanged refresh tokens are recorded by jti in {@code used_refresh_tokens}, which every node
+ * writes to, so a refresh token can be exchanged once across the cluster.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationRegistry {
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+
+    private final UserRepository userRepository;
+    private final UsedRefreshTokenRepository usedRefreshTokenRepository;
+    private final Map<Long, Long> validAfterSeconds = new ConcurrentHashMap<>();
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    @PostConstruct
+    public void load() {
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:30000}", initialDelayString = "${jwt.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        Instant startedAt = Instant.now();
+        for (TokenRevocation revocation : userRepository.findTokenRevocationsAfter(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS))) {
+            revoke(revocation.userId(), revocation.tokensValidAfter());
+        }
+        lastSync = startedAt;
+    }
+
+    public void revoke(Long userId, Instant tokensValidAfter) {
+        validAfterSeconds.merge(userId, tokensValidAfter.getEpochSecond(), Math::max);
+    }
+
+    /**
+     * Revokes every token the user holds, including any issued earlier in the current second.
+     */
+    public void revokeAll(Long userId) {
+        Instant tokensValidAfter = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        userRepository.updateTokensValidAfter(userId, tokensValidAfter);
+        revoke(userId, tokensValidAfter);
+    }
+
+    public boolean isRevoked(long userId, Date issuedAt) {
+        Long validAfter = validAfterSeconds.get(userId);
+        return validAfter != null && (issuedAt == null || issuedAt.getTime() / 1000 < validAfter);
+    }
+
+    /**
+     * Records the refresh token as exchanged. Returns {@code false} if it already was.
+     */
+    public boolean markRefreshTokenUsed(String jti, Long userId, Date expiresAt) {
+        try {
+            usedRefreshTokenRepository.insert(jti, userId, expiresAt.toInstant());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval-ms:3600000}", initialDelayString = "${jwt.refresh.purge-interval-ms:3600000}")
+    public void purgeUsedRefreshTokens() {
+        usedRefreshTokenRepository.deleteExpiredBefore(Instant.now());
+    }
+}
@@ -1,6 +1,6 @@
 package bg.tuvarna.devicebackend.config;
 
-import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
 import bg.tuvarna.devicebackend.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -11,13 +11,21 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class UserDetailsServiceConfig implements UserDetailsService {
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
-    public User loadUserByUsername(String username) throws UsernameNotFoundException {
-        final User profile = userRepository.findById(Long.valueOf(username)).orElse(null);
-        if (profile == null) {
+    public UserPrincipal loadUserByUsername(String username) throws UsernameNotFoundException {
+        final Long id = Long.valueOf(username);
+        UserPrincipal principal = userPrincipalCache.get(id);
+        if (principal != null) {
+            return principal;
+        }
+
+        principal = userRepository.findPrincipalById(id).orElse(null);
+        if (principal == null) {
             throw new UsernameNotFoundException(username);
         }
-        return profile;
+        userPrincipalCache.put(principal);
+        return principal;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package bg.tuvarna.devicebackend.config;
+
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
+import bg.tuvarna.devicebackend.utils.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserPrincipalCache {
+    private final ExpiringCache<Long, UserPrincipal> principals;
+    private final long ttlMillis;
+
+    public UserPrincipalCache(
+            @Value("${auth.principal-cache.max-entries:10000}") int maxEntries,
+            @Value("${auth.principal-cache.ttl-seconds:60}") long ttlSeconds
+    ) {
+        this.principals = new ExpiringCache<>(maxEntries);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public UserPrincipal get(Long id) {
+        return principals.get(id);
+    }
+
+    public void put(UserPrincipal principal) {
+        principals.put(principal.id(), principal, System.currentTimeMillis() + ttlMillis);
+    }
+
+    public void evict(Long id) {
+        principals.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        principals.invalidateAll();
+    }
+}
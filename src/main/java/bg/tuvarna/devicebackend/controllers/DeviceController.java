@@ -4,9 +4,10 @@ import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
 import bg.tuvarna.devicebackend.models.dtos.DeviceCreateVO;
 import bg.tuvarna.devicebackend.models.dtos.DeviceUpdateVO;
 import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
 import bg.tuvarna.devicebackend.models.entities.Device;
-import bg.tuvarna.devicebackend.models.entities.User;
 import bg.tuvarna.devicebackend.services.DeviceService;
+import bg.tuvarna.devicebackend.services.UserService;
 import bg.tuvarna.devicebackend.utils.CustomPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -26,6 +27,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 @AllArgsConstructor
 public class DeviceController {
     private final DeviceService deviceService;
+    private final UserService userService;
 
     @Operation(
             description = "Return device by id for logged in user.",
@@ -34,7 +36,7 @@ public class DeviceController {
     @GetMapping("/{id}")
     @SecurityRequirement(name = "bearerAuth")
     public DeviceVO findDevice(@PathVariable String id) {
-        return new DeviceVO(deviceService.findDevice(id));
+        return deviceService.getDevice(id);
     }
 
     @Operation(
@@ -54,7 +56,7 @@ public class DeviceController {
     })
     @GetMapping("/exists/{id}")
     public ResponseEntity<DeviceVO> isDeviceExists(@PathVariable String id) {
-        return ResponseEntity.ok(new DeviceVO(deviceService.isDeviceExists(id)));
+        return ResponseEntity.ok(deviceService.getRegisteredDevice(id));
     }
 
     @Operation(
@@ -77,9 +79,9 @@ public class DeviceController {
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<DeviceVO> addDevice(
             @RequestBody @Valid DeviceCreateVO device,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal principal
     ) {
-        Device saved = deviceService.registerNewDevice(device, user);
+        Device saved = deviceService.registerNewDevice(device, principal != null ? userService.getUserById(principal.id()) : null);
 
         return ResponseEntity.created(
                         ServletUriComponentsBuilder
@@ -0,0 +1,71 @@
+package bg.tuvarna.devicebackend.controllers;
+
+import bg.tuvarna.devicebackend.models.dtos.SnapshotVO;
+import bg.tuvarna.devicebackend.services.SnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/snapshots")
+@AllArgsConstructor
+public class SnapshotController {
+    private final SnapshotService snapshotService;
+
+    @Operation(
+            summary = "Export snapshot",
+            description = "Streams passports, users, devices and renovations as a binary snapshot. " +
+                    "The snapshot contains password hashes and must be stored accordingly."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snapshot streamed")
+    })
+    @GetMapping(produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"device-backend-" + LocalDate.now() + ".snapshot\""
+        );
+        snapshotService.export(response.getOutputStream());
+    }
+
+    @Operation(
+            summary = "Restore snapshot",
+            description = "Loads a snapshot produced by the export into an empty database. " +
+                    "The bootstrap admin account is replaced by the accounts from the snapshot."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Snapshot restored",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SnapshotVO.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Database not empty, or snapshot corrupted or from another schema")
+    })
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<SnapshotVO> restore(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(snapshotService.restore(request.getInputStream()));
+    }
+}
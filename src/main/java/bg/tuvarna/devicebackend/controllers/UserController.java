@@ -1,5 +1,6 @@
 package bg.tuvarna.devicebackend.controllers;
 
+import bg.tuvarna.devicebackend.config.JwtService;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorResponse;
 import bg.tuvarna.devicebackend.models.dtos.*;
 import bg.tuvarna.devicebackend.models.entities.User;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 @AllArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final JwtService jwtService;
 
     @Operation(
             summary = "Register user.",
@@ -66,11 +68,38 @@ public class UserController {
     @PostMapping("/login")
     public ResponseEntity<AuthResponseDTO> userLogin(
             @RequestBody @Valid UserLoginDTO dto,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal principal
     ) {
         return ResponseEntity.ok().build();
     }
 
+    @Operation(
+            summary = "Refresh token.",
+            description = "Exchanges a valid refresh token for a new access token and refresh token."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully refreshed.",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TokenPairVO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Refresh token is invalid, expired or revoked.",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenPairVO> refreshToken(@RequestBody @Valid RefreshTokenVO refreshTokenVO) {
+        return ResponseEntity.ok(jwtService.refresh(refreshTokenVO.refreshToken()));
+    }
+
     @Operation(
             summary = "Returns users.",
             description = "Returns users based on search."
@@ -133,7 +162,7 @@ public class UserController {
     )
     @GetMapping("/getUser")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<UserVO> getUser(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(new UserVO(user));
+    public ResponseEntity<UserVO> getUser(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(new UserVO(userService.getUserById(principal.id())));
     }
 }
\ No newline at end of file
@@ -19,4 +19,18 @@ public class CustomException extends RuntimeException {
         this.errorCode = errorCode;
         this.arguments = errorParameters;
     }
+
+    protected CustomException(String message, ErrorCode errorCode, boolean writableStackTrace, String... errorParameters) {
+        super(message, null, false, writableStackTrace);
+        this.errorCode = errorCode;
+        this.arguments = errorParameters;
+    }
+
+    /**
+     * For expected outcomes on hot paths (unknown serial, unregistered device): no stack trace is captured.
+     * Instances without per-call data are immutable and can be created once and rethrown.
+     */
+    public static CustomException stackless(String message, ErrorCode errorCode, String... errorParameters) {
+        return new CustomException(message, errorCode, false, errorParameters);
+    }
 }
\ No newline at end of file
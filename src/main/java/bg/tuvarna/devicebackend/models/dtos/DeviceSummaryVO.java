@@ -0,0 +1,29 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import bg.tuvarna.devicebackend.models.entities.Device;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+
+public record DeviceSummaryVO(
+        @JsonIgnore
+        Long userId,
+        String serialNumber,
+        LocalDate purchaseDate,
+        LocalDate warrantyExpirationDate,
+        String comment,
+        String passportName,
+        String passportModel
+) {
+    public DeviceSummaryVO(Device device) {
+        this(
+                device.getUser() != null ? device.getUser().getId() : null,
+                device.getSerialNumber(),
+                device.getPurchaseDate(),
+                device.getWarrantyExpirationDate(),
+                device.getComment(),
+                device.getPassport() != null ? device.getPassport().getName() : null,
+                device.getPassport() != null ? device.getPassport().getModel() : null
+        );
+    }
+}
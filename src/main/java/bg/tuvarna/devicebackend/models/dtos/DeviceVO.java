@@ -22,7 +22,7 @@ public record DeviceVO(
                 device.getComment(),
                 device.getUser() != null ? new UserVO(device.getUser(), false) : null,
                 new PassportVO(device.getPassport()),
-                device.getRenovations().stream().map(RenovationVO::new).toList()
+                device.getRenovations().stream().map(renovation -> new RenovationVO(renovation, null)).toList()
         );
     }
 
@@ -34,7 +34,7 @@ public record DeviceVO(
                 device.getComment(),
                 loadUser && device.getUser() != null ? new UserVO(device.getUser(), false) : null,
                 new PassportVO(device.getPassport()),
-                device.getRenovations().stream().map(RenovationVO::new).toList()
+                device.getRenovations().stream().map(renovation -> new RenovationVO(renovation, null)).toList()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenVO(
+        @NotBlank(message = "Refresh token is required")
+        String refreshToken
+) {
+}
@@ -11,11 +11,15 @@ public record RenovationVO(
         DeviceVO device
 ) {
     public RenovationVO(Renovation renovation){
+        this(renovation, new DeviceVO(renovation.getDevice()));
+    }
+
+    public RenovationVO(Renovation renovation, DeviceVO device) {
         this(
                 renovation.getId(),
                 renovation.getDescription(),
                 renovation.getRenovationDate(),
-                new DeviceVO(renovation.getDevice())
+                device
         );
     }
 }
\ No newline at end of file
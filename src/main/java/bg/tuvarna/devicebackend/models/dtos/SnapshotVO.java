@@ -0,0 +1,6 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import java.util.Map;
+
+public record SnapshotVO(Map<String, Long> rows, long durationMillis) {
+}
@@ -0,0 +1,9 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import java.time.Instant;
+
+public record TokenRevocation(
+        Long userId,
+        Instant tokensValidAfter
+) {
+}
@@ -0,0 +1,21 @@
+package bg.tuvarna.devicebackend.models.dtos;
+
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+
+public record UserCredentials(
+        Long id,
+        String email,
+        String password,
+        UserRole role,
+        String fullName,
+        String address,
+        String phone
+) {
+    public UserPrincipal toPrincipal() {
+        return new UserPrincipal(id, email, role);
+    }
+
+    public UserVO toUserVO() {
+        return new UserVO(id, fullName, address, phone, email, role, null);
+    }
+}
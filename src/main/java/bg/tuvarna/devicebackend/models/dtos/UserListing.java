@@ -1,6 +1,5 @@
 package bg.tuvarna.devicebackend.models.dtos;
 
-import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.User;
 
 import java.util.List;
@@ -11,9 +10,24 @@ public record UserListing(
         String address,
         String phone,
         String email,
-        List<Device> devices
+        List<DeviceSummaryVO> devices
 ) {
+    public UserListing(Long id, String fullName, String address, String phone, String email) {
+        this(id, fullName, address, phone, email, List.of());
+    }
+
     public UserListing (User user){
-        this(user.getId(), user.getFullName(), user.getAddress(), user.getPhone(), user.getEmail(), user.getDevices());
+        this(
+                user.getId(),
+                user.getFullName(),
+                user.getAddress(),
+                user.getPhone(),
+                user.getEmail(),
+                user.getDevices() != null ? user.getDevices().stream().map(DeviceSummaryVO::new).toList() : List.of()
+        );
+    }
+
+    public UserListing withDevices(List<DeviceSummaryVO> devices) {
+        return new UserListing(id, fullName, address, phone, email, devices);
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,14 @@
 package bg.tuvarna.devicebackend.models.entities;
 
+import bg.tuvarna.devicebackend.utils.SearchNormalizer;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -13,7 +18,8 @@ import java.util.List;
 @Table(name = "devices", schema = "public")
 @Getter
 @Setter
-public class Device {
+@EntityListeners(NormalizedColumnsListener.class)
+public class Device implements Normalizable {
     @Id
     @Column(name = "serialNumber", nullable = false)
     private String serialNumber;
@@ -21,6 +27,10 @@ public class Device {
     private LocalDate warrantyExpirationDate;
     private String comment;
 
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String serialNumberNormalized;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     @JsonIgnore
@@ -28,9 +38,15 @@ public class Device {
 
     @ManyToOne
     @JoinColumn(name = "passport_id")
+    @Fetch(FetchMode.SELECT)
     private Passport passport;
 
     @OneToMany(mappedBy = "device", orphanRemoval = true, cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     private List<Renovation> renovations = new ArrayList<>();
 
+    @Override
+    public void normalize() {
+        serialNumberNormalized = SearchNormalizer.text(serialNumber);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package bg.tuvarna.devicebackend.models.entities;
+
+public interface Normalizable {
+    void normalize();
+}
@@ -0,0 +1,16 @@
+package bg.tuvarna.devicebackend.models.entities;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Keeps the normalized lookup columns in step with their source columns on every insert
+ * and update that goes through JPA. Bulk JPQL/SQL updates bypass it.
+ */
+public class NormalizedColumnsListener {
+    @PrePersist
+    @PreUpdate
+    public void normalize(Normalizable entity) {
+        entity.normalize();
+    }
+}
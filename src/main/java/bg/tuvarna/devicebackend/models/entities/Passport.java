@@ -1,7 +1,12 @@
 package bg.tuvarna.devicebackend.models.entities;
 
+import bg.tuvarna.devicebackend.utils.SearchNormalizer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "passports", schema = "public")
@@ -10,7 +15,10 @@ import lombok.*;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class Passport {
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = 50)
+@EntityListeners(NormalizedColumnsListener.class)
+public class Passport implements Normalizable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
@@ -21,4 +29,17 @@ public class Passport {
     private int fromSerialNumber;
     private int toSerialNumber;
     private int warrantyMonths;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String nameNormalized;
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String modelNormalized;
+
+    @Override
+    public void normalize() {
+        nameNormalized = SearchNormalizer.text(name);
+        modelNormalized = SearchNormalizer.text(model);
+    }
 }
\ No newline at end of file
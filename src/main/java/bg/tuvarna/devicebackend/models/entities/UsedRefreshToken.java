@@ -0,0 +1,20 @@
+package bg.tuvarna.devicebackend.models.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "used_refresh_tokens", schema = "public")
+@Getter
+@Setter
+public class UsedRefreshToken {
+    @Id
+    @Column(name = "jti", nullable = false, length = 36)
+    private String jti;
+
+    private Long userId;
+    private Instant expiresAt;
+}
@@ -2,23 +2,33 @@ package bg.tuvarna.devicebackend.models.entities;
 
 import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
 import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.utils.SearchNormalizer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "users", schema = "public")
+@Table(name = "users", schema = "public", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_users_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_users_phone", columnNames = "phone"),
+        @UniqueConstraint(name = "uk_users_email_normalized", columnNames = "emailNormalized"),
+        @UniqueConstraint(name = "uk_users_phone_normalized", columnNames = "phoneNormalized")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-public class User implements UserDetails {
+@EntityListeners(NormalizedColumnsListener.class)
+public class User implements UserDetails, Normalizable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
@@ -30,8 +40,20 @@ public class User implements UserDetails {
     private String password;
     @Enumerated(EnumType.STRING)
     private UserRole role;
+    private Instant tokensValidAfter;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String emailNormalized;
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String phoneNormalized;
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String fullNameNormalized;
 
     @OneToMany(mappedBy = "user", orphanRemoval = true, cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
     private List<Device> devices;
 
     public User(UserCreateVO vo) {
@@ -42,6 +64,13 @@ public class User implements UserDetails {
         this.role = UserRole.USER;
     }
 
+    @Override
+    public void normalize() {
+        emailNormalized = SearchNormalizer.text(email);
+        phoneNormalized = SearchNormalizer.phone(phone);
+        fullNameNormalized = SearchNormalizer.text(fullName);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(role.name()));
@@ -0,0 +1,10 @@
+package bg.tuvarna.devicebackend.models.enums;
+
+/**
+ * The kind of route a request is for, used to give each kind of traffic its own share of the database.
+ */
+public enum RequestClass {
+    PUBLIC,
+    USER,
+    ADMIN
+}
@@ -0,0 +1,23 @@
+package bg.tuvarna.devicebackend.models.enums;
+
+/**
+ * Order in which traffic is shed under load; {@link #LOW} goes first.
+ */
+public enum RequestPriority {
+    HIGH(1.0),
+    NORMAL(0.75),
+    LOW(0.5);
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * Fraction of the concurrency limit requests of this priority may fill.
+     */
+    public double share() {
+        return share;
+    }
+}
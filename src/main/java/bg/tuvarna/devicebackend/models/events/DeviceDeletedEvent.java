@@ -0,0 +1,4 @@
+package bg.tuvarna.devicebackend.models.events;
+
+public record DeviceDeletedEvent(String serialNumber) implements DomainEvent {
+}
@@ -0,0 +1,4 @@
+package bg.tuvarna.devicebackend.models.events;
+
+public record DeviceRegisteredEvent(String serialNumber, Long userId, Long passportId) implements DomainEvent {
+}
@@ -0,0 +1,4 @@
+package bg.tuvarna.devicebackend.models.events;
+
+public record DeviceUpdatedEvent(String serialNumber) implements DomainEvent {
+}
@@ -0,0 +1,9 @@
+package bg.tuvarna.devicebackend.models.events;
+
+/**
+ * Marker for events delivered through {@code DomainEventBus}. Events are published with
+ * Spring's {@code ApplicationEventPublisher} and reach subscribers after the publishing
+ * transaction commits.
+ */
+public interface DomainEvent {
+}
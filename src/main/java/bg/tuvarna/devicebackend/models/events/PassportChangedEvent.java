@@ -0,0 +1,4 @@
+package bg.tuvarna.devicebackend.models.events;
+
+public record PassportChangedEvent(Long passportId) implements DomainEvent {
+}
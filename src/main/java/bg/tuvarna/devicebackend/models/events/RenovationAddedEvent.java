@@ -0,0 +1,4 @@
+package bg.tuvarna.devicebackend.models.events;
+
+public record RenovationAddedEvent(String deviceSerialNumber, Long renovationId) implements DomainEvent {
+}
@@ -0,0 +1,4 @@
+package bg.tuvarna.devicebackend.models.events;
+
+public record UserRegisteredEvent(Long userId) implements DomainEvent {
+}
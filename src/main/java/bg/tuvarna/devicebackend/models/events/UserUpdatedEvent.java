@@ -0,0 +1,6 @@
+package bg.tuvarna.devicebackend.models.events;
+
+import java.util.List;
+
+public record UserUpdatedEvent(Long userId, List<String> deviceSerialNumbers) implements DomainEvent {
+}
@@ -2,17 +2,22 @@ package bg.tuvarna.devicebackend.repositories;
 
 import bg.tuvarna.devicebackend.models.entities.Passport;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PassportRepository extends JpaRepository<Passport, Long> {
-    @Query("select p from Passport p where p.serialPrefix like :serialPrefix and p.fromSerialNumber between :fromSerialNumberStart and :toSerialNumber" +
-            " or p.serialPrefix like :serialPrefix and p.toSerialNumber between :fromSerialNumberStart and :toSerialNumber")
+    @Query("select p from Passport p where p.serialPrefix = :serialPrefix and p.fromSerialNumber between :fromSerialNumberStart and :toSerialNumber" +
+            " or p.serialPrefix = :serialPrefix and p.toSerialNumber between :fromSerialNumberStart and :toSerialNumber")
     List<Passport> findByFromSerialNumberBetween(String serialPrefix, int fromSerialNumberStart, int toSerialNumber);
 
-    @Query("select p from Passport p where :serialId LIKE CONCAT(p.serialPrefix, '%')")
-    List<Passport> findByFromSerial(String serialId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select p from Passport p where p.serialPrefix in :prefixes")
+    List<Passport> findBySerialPrefixIn(Collection<String> prefixes);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package bg.tuvarna.devicebackend.repositories;
+
+import bg.tuvarna.devicebackend.models.entities.UsedRefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface UsedRefreshTokenRepository extends JpaRepository<UsedRefreshToken, String> {
+    /**
+     * Plain insert instead of {@code save}, which would merge into an existing row with the same jti.
+     */
+    @Modifying
+    @Transactional
+    @Query("insert into UsedRefreshToken (jti, userId, expiresAt) values (?1, ?2, ?3)")
+    int insert(String jti, Long userId, Instant expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from UsedRefreshToken t where t.expiresAt < ?1")
+    int deleteExpiredBefore(Instant now);
+}
@@ -1,38 +1,90 @@
 package bg.tuvarna.devicebackend.repositories;
 
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
+import bg.tuvarna.devicebackend.models.dtos.DeviceSummaryVO;
+import bg.tuvarna.devicebackend.models.dtos.TokenRevocation;
+import bg.tuvarna.devicebackend.models.dtos.UserListing;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
 import bg.tuvarna.devicebackend.models.entities.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // The address has no normalized column or index and keeps matching anywhere in the text.
+    String USER_SEARCH = "where u.role!='ADMIN' AND (u.fullNameNormalized LIKE concat(?1,'%') OR " +
+            "u.emailNormalized LIKE concat(?1,'%') OR " +
+            "lower(u.address) LIKE concat('%',?1,'%') OR " +
+            "(?2 is not null AND u.phoneNormalized LIKE concat(?2,'%')) OR " +
+            "exists (select d.serialNumber from Device d left join d.passport p where d.user = u AND (" +
+            "p.nameNormalized LIKE concat(?1,'%') OR " +
+            "p.modelNormalized LIKE concat(?1,'%') OR " +
+            "d.serialNumberNormalized LIKE concat(?1,'%'))))";
+
     User getByEmail(String email);
 
-    @Query("select u from User u where u.email = ?1 OR u.phone = ?1")
-    Optional<User> findByEmailOrPhone(String email);
-
-    User getByPhone(String phone);
-
-    @Query("select distinct u from User u " +
-            "left join u.devices d " +
-            "left join d.passport p " +
-            "where u.role!='ADMIN' AND (?1 is null OR ( ?1 is not null AND lower(u.fullName) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(u.address) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(u.email) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(u.phone) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(p.name) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(p.model) LIKE concat('%',lower(?1),'%') OR " +
-            "lower(d.serialNumber) LIKE concat('%',lower(?1),'%')))")
-    Page<User> searchBy(String searchBy, Pageable pageable);
-
-    @Query("select distinct u from User u " +
-            "left join u.devices d " +
-            "left join d.passport p " +
-            "where u.role!='ADMIN'")
-    Page<User> getAllUsers(Pageable pageable);
+    boolean existsByEmailNormalized(String email);
+
+    boolean existsByPhoneNormalized(String phone);
+
+    // The normalized lookups take the oldest match: rows from before V9 may still share a value.
+    Optional<User> findFirstByEmailNormalizedOrderByIdAsc(String email);
+
+    Optional<User> findFirstByPhoneNormalizedOrderByIdAsc(String phone);
+
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.UserCredentials(u.id, u.email, u.password, u.role, " +
+            "u.fullName, u.address, u.phone) " +
+            "from User u where u.emailNormalized = ?1 order by u.id limit 1")
+    Optional<UserCredentials> findCredentialsByEmail(String email);
+
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.UserCredentials(u.id, u.email, u.password, u.role, " +
+            "u.fullName, u.address, u.phone) " +
+            "from User u where u.phoneNormalized = ?1 order by u.id limit 1")
+    Optional<UserCredentials> findCredentialsByPhone(String phone);
+
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.UserPrincipal(u.id, u.email, u.role) from User u where u.id = ?1")
+    Optional<UserPrincipal> findPrincipalById(Long id);
+
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.TokenRevocation(u.id, u.tokensValidAfter) from User u where u.tokensValidAfter > ?1")
+    List<TokenRevocation> findTokenRevocationsAfter(Instant since);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = ?3 where u.id = ?1 and u.password = ?2")
+    int updatePasswordHash(Long id, String currentHash, String newHash);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.tokensValidAfter = ?2 where u.id = ?1")
+    int updateTokensValidAfter(Long id, Instant tokensValidAfter);
+
+    @Query(value = "select new bg.tuvarna.devicebackend.models.dtos.UserListing(u.id, u.fullName, u.address, u.phone, u.email) " +
+            "from User u " + USER_SEARCH + " order by u.id",
+            countQuery = "select count(u) from User u " + USER_SEARCH)
+    Page<UserListing> searchBy(String prefix, String phonePrefix, Pageable pageable);
+
+    @Query(value = "select new bg.tuvarna.devicebackend.models.dtos.UserListing(u.id, u.fullName, u.address, u.phone, u.email) " +
+            "from User u where u.role!='ADMIN' order by u.id",
+            countQuery = "select count(u) from User u where u.role!='ADMIN'")
+    Page<UserListing> getAllUsers(Pageable pageable);
+
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.DeviceSummaryVO(d.user.id, d.serialNumber, d.purchaseDate, " +
+            "d.warrantyExpirationDate, d.comment, p.name, p.model) " +
+            "from Device d left join d.passport p where d.user.id in ?1")
+    List<DeviceSummaryVO> findDeviceSummaries(Collection<Long> userIds);
+
+    @Query("select new bg.tuvarna.devicebackend.models.dtos.DeviceSummaryVO(d.user.id, d.serialNumber, d.purchaseDate, " +
+            "d.warrantyExpirationDate, d.comment, p.name, p.model) " +
+            "from Device d left join d.passport p where d.user.id in ?1 and d.serialNumberNormalized LIKE concat(?2,'%')")
+    List<DeviceSummaryVO> findDeviceSummariesBySerialNumber(Collection<Long> userIds, String serialPrefix);
 }
\ No newline at end of file
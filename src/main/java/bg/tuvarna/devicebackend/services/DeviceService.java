@@ -1,53 +1,70 @@
 package bg.tuvarna.devicebackend.services;
 
+import bg.tuvarna.devicebackend.config.DeviceCache;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.DeviceCreateVO;
 import bg.tuvarna.devicebackend.models.dtos.DeviceUpdateVO;
+import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.Passport;
 import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.events.DeviceDeletedEvent;
+import bg.tuvarna.devicebackend.models.events.DeviceRegisteredEvent;
+import bg.tuvarna.devicebackend.models.events.DeviceUpdatedEvent;
 import bg.tuvarna.devicebackend.repositories.DeviceRepository;
 import bg.tuvarna.devicebackend.utils.CustomPage;
-import jakarta.transaction.Transactional;
+import bg.tuvarna.devicebackend.utils.SearchNormalizer;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 
 @Service
 @AllArgsConstructor
 public class DeviceService {
+    private static final CustomException INVALID_SERIAL_NUMBER = CustomException.stackless("Invalid serial number", ErrorCode.Failed);
+    private static final CustomException DEVICE_NOT_REGISTERED = CustomException.stackless("Device not registered", ErrorCode.NotRegistered);
+
     private final DeviceRepository deviceRepository;
     private final PassportService passportService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeviceCache deviceCache;
 
     public Device registerDevice(String serialId, LocalDate purchaseDate, User user) {
-        try {
-            Passport passport = passportService.findPassportBySerialId(serialId);
-
-            Device device = new Device();
-            device.setSerialNumber(serialId);
-            device.setPassport(passport);
-            device.setUser(user);
-            device.setPurchaseDate(purchaseDate);
-            device.setWarrantyExpirationDate(purchaseDate.plusMonths(passport.getWarrantyMonths()).plusMonths(12));
-
-            return deviceRepository.save(device);
-        } catch (RuntimeException e) {
-            throw new CustomException("Invalid serial number", ErrorCode.Failed);
-        }
+        Passport passport = passportService.findBySerialId(serialId).orElseThrow(() -> INVALID_SERIAL_NUMBER);
+
+        Device device = new Device();
+        device.setSerialNumber(serialId);
+        device.setPassport(passport);
+        device.setUser(user);
+        device.setPurchaseDate(purchaseDate);
+        device.setWarrantyExpirationDate(purchaseDate.plusMonths(passport.getWarrantyMonths()).plusMonths(12));
+
+        Device saved = deviceRepository.save(device);
+        eventPublisher.publishEvent(new DeviceRegisteredEvent(serialId, user.getId(), passport.getId()));
+        return saved;
     }
 
     public Device findDevice(String id) {
         return deviceRepository.findById(id).orElse(null);
     }
 
+    @Transactional(readOnly = true)
     public Device isDeviceExists(String id) {
-        if (!deviceRepository.existsById(id))
-            throw new CustomException("Device not registered", ErrorCode.NotRegistered);
-        return findDevice(id);
+        return deviceRepository.findById(id).orElseThrow(() -> DEVICE_NOT_REGISTERED);
+    }
+
+    public DeviceVO getDevice(String id) {
+        return deviceCache.load(id, () -> new DeviceVO(findDevice(id)));
+    }
+
+    public DeviceVO getRegisteredDevice(String id) {
+        return deviceCache.load(id, () -> new DeviceVO(isDeviceExists(id)));
     }
 
     public Device registerNewDevice(DeviceCreateVO deviceCreateVO, User user) {
@@ -80,13 +97,16 @@ public class DeviceService {
         deviceToUpdate.setWarrantyExpirationDate(warrantyDate);
         deviceToUpdate.setComment(device.comment());
 
-        return deviceRepository.save(deviceToUpdate);
+        Device saved = deviceRepository.save(deviceToUpdate);
+        eventPublisher.publishEvent(new DeviceUpdatedEvent(serialNumber));
+        return saved;
     }
 
     @Transactional
     public void deleteDevice(String serialNumber) {
         try {
             deviceRepository.deleteBySerialNumber(serialNumber);
+            eventPublisher.publishEvent(new DeviceDeletedEvent(serialNumber));
         } catch (RuntimeException e) {
             throw new CustomException("Cannot delete device: renovations exist", ErrorCode.Failed);
         }
@@ -94,27 +114,27 @@ public class DeviceService {
 
     public Device addAnonymousDevice(DeviceCreateVO device) {
         alreadyExist(device.deviceSerialNumber());
-        try {
-            Passport passport = passportService.findPassportBySerialId(device.deviceSerialNumber());
+        Passport passport = passportService.findBySerialId(device.deviceSerialNumber()).orElseThrow(() -> INVALID_SERIAL_NUMBER);
 
-            Device deviceToAdd = new Device();
-            deviceToAdd.setSerialNumber(device.deviceSerialNumber());
-            deviceToAdd.setPurchaseDate(device.purchaseDate());
-            deviceToAdd.setPassport(passport);
-            deviceToAdd.setWarrantyExpirationDate(device.purchaseDate().plusMonths(passport.getWarrantyMonths()));
+        Device deviceToAdd = new Device();
+        deviceToAdd.setSerialNumber(device.deviceSerialNumber());
+        deviceToAdd.setPurchaseDate(device.purchaseDate());
+        deviceToAdd.setPassport(passport);
+        deviceToAdd.setWarrantyExpirationDate(device.purchaseDate().plusMonths(passport.getWarrantyMonths()));
 
-            return deviceRepository.save(deviceToAdd);
-        } catch (RuntimeException e) {
-            throw new CustomException("Invalid serial number", ErrorCode.Failed);
-        }
+        Device saved = deviceRepository.save(deviceToAdd);
+        eventPublisher.publishEvent(new DeviceRegisteredEvent(device.deviceSerialNumber(), null, passport.getId()));
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public CustomPage<Device> getDevices(String searchBy, int page, int size) {
         Page<Device> devicePage;
-        if (searchBy == null) {
+        String prefix = SearchNormalizer.text(searchBy);
+        if (prefix == null) {
             devicePage = deviceRepository.getAllDevices(PageRequest.of(page - 1, size));
         } else {
-            devicePage = deviceRepository.findAll(searchBy, PageRequest.of(page - 1, size));
+            devicePage = deviceRepository.findAll(prefix, SearchNormalizer.phone(searchBy), PageRequest.of(page - 1, size));
         }
 
         CustomPage<Device> customPage = new CustomPage<>();
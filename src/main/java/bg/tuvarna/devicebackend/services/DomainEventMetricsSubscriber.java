@@ -0,0 +1,32 @@
+package bg.tuvarna.devicebackend.services;
+
+import bg.tuvarna.devicebackend.config.DomainEventSubscriber;
+import bg.tuvarna.devicebackend.models.events.DomainEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Counts committed registrations, renovations and device changes by event type.
+ */
+@Component
+public class DomainEventMetricsSubscriber implements DomainEventSubscriber<DomainEvent> {
+    private final MeterRegistry meterRegistry;
+
+    public DomainEventMetricsSubscriber(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Class<DomainEvent> eventType() {
+        return DomainEvent.class;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            meterRegistry.counter("domain.events", "type", event.getClass().getSimpleName()).increment();
+        }
+    }
+}
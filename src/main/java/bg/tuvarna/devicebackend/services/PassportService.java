@@ -5,21 +5,40 @@ import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.PassportCreateVO;
 import bg.tuvarna.devicebackend.models.dtos.PassportUpdateVO;
 import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.events.PassportChangedEvent;
 import bg.tuvarna.devicebackend.models.mappers.PassportMapper;
 import bg.tuvarna.devicebackend.repositories.PassportRepository;
 import bg.tuvarna.devicebackend.utils.CustomPage;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 @Service
-@AllArgsConstructor
 public class PassportService {
     private final PassportRepository passportRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer serialLookupTimer;
+
+    public PassportService(
+            PassportRepository passportRepository,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry
+    ) {
+        this.passportRepository = passportRepository;
+        this.eventPublisher = eventPublisher;
+        this.serialLookupTimer = Timer.builder("passport.serial.lookup")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     public Passport create(PassportCreateVO passportCreateVO) {
         List<Passport> passports = passportRepository.findByFromSerialNumberBetween(passportCreateVO.serialPrefix(), passportCreateVO.fromSerialNumber(), passportCreateVO.toSerialNumber());
@@ -32,6 +51,7 @@ public class PassportService {
         return passportRepository.save(passport);
     }
 
+    @Transactional
     public Passport update(Long id, PassportUpdateVO passportUpdateVO) {
         Passport passport = findPassportById(id);
 
@@ -50,31 +70,62 @@ public class PassportService {
 
         PassportMapper.updateEntity(passport, passportUpdateVO);
 
-        return passportRepository.save(passport);
+        Passport saved = passportRepository.save(passport);
+        eventPublisher.publishEvent(new PassportChangedEvent(id));
+        return saved;
     }
 
     public Passport findPassportById(Long id) {
         return passportRepository.findById(id).orElse(null);
     }
 
+    @Transactional(readOnly = true, noRollbackFor = CustomException.class)
     public Passport findPassportBySerialId(String serialId) {
+        return findBySerialId(serialId).orElseThrow(() ->
+                CustomException.stackless("Passport not found for serial number: " + serialId, ErrorCode.Failed)
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Passport> findBySerialId(String serialId) {
+        return serialLookupTimer.record(() -> lookupPassportBySerialId(serialId));
+    }
+
+    private Optional<Passport> lookupPassportBySerialId(String serialId) {
         List<Passport> passports = getPassportsBySerialPrefix(serialId);
-        
+
         for (Passport passport : passports) {
-            int serialNumber;
-            try {
-                serialNumber = Integer.parseInt(serialId.split(passport.getSerialPrefix())[1]);
-            } catch (NumberFormatException e) {
-                continue;
-            }
+            long serialNumber = parseSerialNumber(serialId, passport.getSerialPrefix().length());
             if (serialNumber >= passport.getFromSerialNumber() && serialNumber <= passport.getToSerialNumber()) {
-                return passport;
+                return Optional.of(passport);
             }
         }
 
-        throw new CustomException("Passport not found for serial number: " + serialId, ErrorCode.Failed);
+        return Optional.empty();
     }
 
+    /**
+     * Numeric part of the serial after the prefix, or -1 when it is empty, not all digits or out of int range.
+     */
+    private static long parseSerialNumber(String serialId, int from) {
+        if (from >= serialId.length()) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < serialId.length(); i++) {
+            char c = serialId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    @Transactional(readOnly = true)
     public CustomPage<Passport> getPassports(int page, int size) {
         Page<Passport> passports = passportRepository.findAll(PageRequest.of(page - 1, size));
 
@@ -89,12 +140,21 @@ public class PassportService {
     }
 
     public List<Passport> getPassportsBySerialPrefix(String serialId) {
-        return passportRepository.findByFromSerial(serialId);
+        return passportRepository.findBySerialPrefixIn(prefixesOf(serialId));
+    }
+
+    private static List<String> prefixesOf(String serialId) {
+        List<String> prefixes = new ArrayList<>(serialId.length());
+        for (int end = 1; end < serialId.length(); end++) {
+            prefixes.add(serialId.substring(0, end));
+        }
+        return prefixes;
     }
 
     public void delete(Long id) {
         try {
             passportRepository.deleteById(id);
+            eventPublisher.publishEvent(new PassportChangedEvent(id));
         } catch (RuntimeException e) {
             throw new CustomException("Can't delete passport", ErrorCode.Failed);
         }
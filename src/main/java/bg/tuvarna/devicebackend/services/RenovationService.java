@@ -3,8 +3,10 @@ package bg.tuvarna.devicebackend.services;
 import bg.tuvarna.devicebackend.models.dtos.RenovationCreateVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.models.events.RenovationAddedEvent;
 import bg.tuvarna.devicebackend.repositories.RenovationRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Service;
 public class RenovationService {
     private final RenovationRepository renovationRepository;
     private final DeviceService deviceService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Renovation save(RenovationCreateVO vo) {
         Device device = deviceService.isDeviceExists(vo.deviceSerialNumber());
@@ -21,6 +24,8 @@ public class RenovationService {
         renovation.setDescription(vo.description());
         renovation.setRenovationDate(vo.renovationDate());
 
-        return renovationRepository.save(renovation);
+        Renovation saved = renovationRepository.save(renovation);
+        eventPublisher.publishEvent(new RenovationAddedEvent(device.getSerialNumber(), saved.getId()));
+        return saved;
     }
 }
\ No newline at end of file
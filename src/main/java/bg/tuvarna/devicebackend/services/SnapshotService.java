@@ -0,0 +1,493 @@
+package bg.tuvarna.devicebackend.services;
+
+import bg.tuvarna.devicebackend.config.DeviceCache;
+import bg.tuvarna.devicebackend.config.UserPrincipalCache;
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.SnapshotVO;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.utils.SnapshotColumn;
+import bg.tuvarna.devicebackend.utils.SnapshotReader;
+import bg.tuvarna.devicebackend.utils.SnapshotWriter;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static bg.tuvarna.devicebackend.utils.SnapshotColumn.Type.BIGINT;
+import static bg.tuvarna.devicebackend.utils.SnapshotColumn.Type.DATE;
+import static bg.tuvarna.devicebackend.utils.SnapshotColumn.Type.INTEGER;
+import static bg.tuvarna.devicebackend.utils.SnapshotColumn.Type.TEXT;
+import static bg.tuvarna.devicebackend.utils.SnapshotColumn.Type.TIMESTAMP;
+
+/**
+ * Exports the whole dataset into a {@link SnapshotWriter} stream and restores it into a fresh
+ * database. The export reads every table inside one repeatable-read transaction, so the sections
+ * are consistent with each other. On PostgreSQL the restore drops the secondary indexes, unique
+ * and foreign key constraints, inserts blocks in parallel and recreates them afterwards; other
+ * databases load the tables one after another with the schema left in place.
+ */
+@Service
+public class SnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    private static final List<Table> TABLES = List.of(
+            new Table("users", true,
+                    column("id", BIGINT),
+                    column("full_name", TEXT),
+                    column("password", TEXT),
+                    column("email", TEXT),
+                    column("phone", TEXT),
+                    column("address", TEXT),
+                    column("role", TEXT),
+                    column("tokens_valid_after", TIMESTAMP),
+                    column("email_normalized", TEXT),
+                    column("phone_normalized", TEXT),
+                    column("full_name_normalized", TEXT)
+            ),
+            new Table("passports", true,
+                    column("id", BIGINT),
+                    column("name", TEXT),
+                    column("model", TEXT),
+                    column("serial_prefix", TEXT),
+                    column("from_serial_number", INTEGER),
+                    column("to_serial_number", INTEGER),
+                    column("warranty_months", INTEGER),
+                    column("name_normalized", TEXT),
+                    column("model_normalized", TEXT)
+            ),
+            new Table("devices", false,
+                    column("serial_number", TEXT),
+                    column("purchase_date", DATE),
+                    column("warranty_expiration_date", DATE),
+                    column("comment", TEXT),
+                    column("passport_id", BIGINT),
+                    column("user_id", BIGINT),
+                    column("serial_number_normalized", TEXT)
+            ),
+            new Table("renovations", true,
+                    column("id", BIGINT),
+                    column("description", TEXT),
+                    column("renovation_date", DATE),
+                    column("device_serial_number", TEXT)
+            )
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final DeviceCache deviceCache;
+    private final UserPrincipalCache userPrincipalCache;
+    private final int rowsPerBlock;
+    private final int importParallelism;
+
+    public SnapshotService(
+            JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            EntityManagerFactory entityManagerFactory,
+            DeviceCache deviceCache,
+            UserPrincipalCache userPrincipalCache,
+            @Value("${snapshot.rows-per-block:1000}") int rowsPerBlock,
+            @Value("${snapshot.import-parallelism:4}") int importParallelism
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.deviceCache = deviceCache;
+        this.userPrincipalCache = userPrincipalCache;
+        this.rowsPerBlock = rowsPerBlock;
+        this.importParallelism = importParallelism;
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SnapshotVO export(OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        SnapshotWriter writer = new SnapshotWriter(out, rowsPerBlock);
+        try {
+            for (Table table : TABLES) {
+                writer.beginSection(table.name(), table.columns());
+                jdbcTemplate.query(
+                        connection -> {
+                            PreparedStatement statement = connection.prepareStatement(
+                                    table.selectSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+                            );
+                            statement.setFetchSize(rowsPerBlock);
+                            return statement;
+                        },
+                        resultSet -> {
+                            try {
+                                writer.writeRow(read(resultSet, table.columns()));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                );
+                rows.put(table.name(), writer.endSection());
+            }
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new SnapshotVO(rows, elapsedMillis(started));
+    }
+
+    /**
+     * The bootstrap admin is only removed for the load. If anything fails, including rebuilding
+     * the deferred constraints, the loaded rows are deleted, the schema is completed and the admin
+     * is put back, so the database is as it was before the restore.
+     */
+    public SnapshotVO restore(InputStream in) {
+        long started = System.nanoTime();
+        List<Object[]> bootstrapAdmin = takeBootstrapAdmin();
+
+        boolean deferSchema = isPostgres();
+        DeferredSchema deferred = DeferredSchema.NONE;
+        Set<String> recreated = ConcurrentHashMap.newKeySet();
+        try {
+            if (deferSchema) {
+                deferred = dropDeferrableSchema();
+            }
+            Map<String, Long> rows = load(in, deferSchema ? importParallelism : 1);
+            recreate(deferred, recreated);
+            restartIdentities();
+            if (deferSchema) {
+                TABLES.forEach(table -> jdbcTemplate.execute("analyze " + table.qualifiedName()));
+            }
+            return new SnapshotVO(rows, elapsedMillis(started));
+        } catch (RuntimeException e) {
+            try {
+                undoRestore(deferred, recreated, bootstrapAdmin);
+            } catch (RuntimeException cleanup) {
+                logger.error("Cleaning up after a failed snapshot restore failed", cleanup);
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        } finally {
+            entityManagerFactory.getCache().evictAll();
+            deviceCache.invalidateAll();
+            userPrincipalCache.invalidateAll();
+        }
+    }
+
+    private void undoRestore(DeferredSchema deferred, Set<String> recreated, List<Object[]> bootstrapAdmin) {
+        TABLES.reversed().forEach(table -> jdbcTemplate.execute("delete from " + table.qualifiedName()));
+        deferred.statements().stream()
+                .filter(sql -> !recreated.contains(sql))
+                .forEach(jdbcTemplate::execute);
+        Table users = TABLES.getFirst();
+        jdbcTemplate.batchUpdate(users.insertSql(), bootstrapAdmin, bootstrapAdmin.size(),
+                (statement, row) -> bind(statement, users.columns(), row));
+        restartIdentities();
+    }
+
+    private Map<String, Long> load(InputStream in, int parallelism) {
+        Map<String, Table> tables = TABLES.stream().collect(Collectors.toMap(Table::name, table -> table));
+        Map<String, Long> rows = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("snapshot-restore-"));
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try {
+            SnapshotReader reader = new SnapshotReader(in);
+            SnapshotReader.Section section;
+            while (failure.get() == null && (section = reader.nextSection()) != null) {
+                Table table = tables.get(section.name());
+                if (table == null || !table.columns().equals(section.columns())) {
+                    throw new CustomException("Snapshot section " + section.name() + " does not match the schema", ErrorCode.Validation);
+                }
+                long count = 0;
+                SnapshotReader.Block block;
+                while (failure.get() == null && (block = reader.nextBlock()) != null) {
+                    inFlight.acquire();
+                    SnapshotReader.Block loaded = block;
+                    executor.execute(() -> {
+                        try {
+                            insert(table, loaded);
+                        } catch (Exception e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                    count += block.rowCount();
+                }
+                rows.put(table.name(), count);
+            }
+            inFlight.acquire(parallelism * 2);
+        } catch (IOException e) {
+            throw new CustomException(e.getMessage(), ErrorCode.Validation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Snapshot restore interrupted", ErrorCode.Failed);
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+
+        Exception failed = failure.get();
+        if (failed instanceof IOException) {
+            throw new CustomException(failed.getMessage(), ErrorCode.Validation);
+        }
+        if (failed != null) {
+            logger.error("Snapshot restore failed", failed);
+            throw new CustomException("Snapshot restore failed: " + failed.getMessage(), ErrorCode.Failed);
+        }
+        return rows;
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void insert(Table table, SnapshotReader.Block block) throws IOException, SQLException {
+        List<Object[]> rows = block.rows();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(table.insertSql())) {
+                for (Object[] row : rows) {
+                    bind(statement, table.columns(), row);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * A fresh installation only holds the admin created by InitialDataSetup; the snapshot
+     * brings its own accounts, so that row is removed and returned to be put back if the
+     * restore fails. Anything else means the database is in use.
+     */
+    private List<Object[]> takeBootstrapAdmin() {
+        for (Table table : TABLES.subList(1, TABLES.size())) {
+            if (hasRows("select 1 from " + table.qualifiedName())) {
+                throw new CustomException("Snapshots can only be restored into an empty database", ErrorCode.Validation);
+            }
+        }
+        if (hasRows("select 1 from public.users where role <> '" + UserRole.ADMIN + "'")
+                || jdbcTemplate.queryForObject("select count(*) from public.users", Long.class) > 1) {
+            throw new CustomException("Snapshots can only be restored into an empty database", ErrorCode.Validation);
+        }
+        Table users = TABLES.getFirst();
+        List<Object[]> admin = jdbcTemplate.query(users.selectSql(), (resultSet, rowNumber) -> read(resultSet, users.columns()));
+        jdbcTemplate.update("delete from public.users");
+        return admin;
+    }
+
+    private boolean hasRows(String sql) {
+        return !jdbcTemplate.queryForList(sql + " fetch first 1 rows only").isEmpty();
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return metaData.getDatabaseProductName();
+        });
+        return "PostgreSQL".equals(product);
+    }
+
+    /**
+     * Drops foreign keys, unique constraints and secondary indexes of the snapshot tables and
+     * returns the statements that recreate them.
+     */
+    private DeferredSchema dropDeferrableSchema() {
+        String relations = TABLES.stream()
+                .map(table -> "'" + table.qualifiedName() + "'::regclass")
+                .collect(Collectors.joining(", "));
+        String tableNames = TABLES.stream()
+                .map(table -> "'" + table.name() + "'")
+                .collect(Collectors.joining(", "));
+        // Foreign keys sort first ('f' < 'u') and have to be dropped before the keys they reference.
+        List<Map<String, Object>> constraints = jdbcTemplate.queryForList(
+                "select conrelid::regclass::text as table_name, conname, contype, pg_get_constraintdef(oid) as definition"
+                        + " from pg_constraint where contype in ('f', 'u') and conrelid in (" + relations + ")"
+                        + " order by contype"
+        );
+        List<Map<String, Object>> indexes = jdbcTemplate.queryForList(
+                "select indexname, indexdef from pg_indexes where schemaname = 'public' and tablename in (" + tableNames + ")"
+                        + " and indexname not in (select conname from pg_constraint where connamespace = 'public'::regnamespace)"
+        );
+
+        List<String> recreateIndexes = new ArrayList<>();
+        List<String> recreateForeignKeys = new ArrayList<>();
+        for (Map<String, Object> constraint : constraints) {
+            String sql = "alter table " + constraint.get("table_name") + " add constraint "
+                    + constraint.get("conname") + " " + constraint.get("definition");
+            ("f".equals(String.valueOf(constraint.get("contype"))) ? recreateForeignKeys : recreateIndexes).add(sql);
+        }
+        indexes.forEach(index -> recreateIndexes.add((String) index.get("indexdef")));
+        DeferredSchema deferred = new DeferredSchema(recreateIndexes, recreateForeignKeys);
+        logger.warn("Dropping constraints and indexes for snapshot restore, recreate them manually if the restore is killed:\n{}",
+                String.join(";\n", deferred.statements()));
+
+        for (Map<String, Object> constraint : constraints) {
+            jdbcTemplate.execute("alter table " + constraint.get("table_name") + " drop constraint " + constraint.get("conname"));
+        }
+        indexes.forEach(index -> jdbcTemplate.execute("drop index public." + index.get("indexname")));
+        return deferred;
+    }
+
+    /**
+     * Builds indexes and unique constraints in parallel, then adds the foreign keys, which
+     * validates them against the loaded rows. Each statement that succeeded is added to
+     * {@code recreated}.
+     */
+    private void recreate(DeferredSchema deferred, Set<String> recreated) {
+        if (deferred.indexes().isEmpty() && deferred.foreignKeys().isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(importParallelism, new CustomizableThreadFactory("snapshot-index-"));
+        try {
+            List<Future<?>> futures = deferred.indexes().stream()
+                    .<Future<?>>map(sql -> executor.submit(() -> {
+                        jdbcTemplate.execute(sql);
+                        recreated.add(sql);
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new CustomException("Recreating indexes failed: " + e.getCause().getMessage(), ErrorCode.Failed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Recreating indexes interrupted", ErrorCode.Failed);
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+        for (String sql : deferred.foreignKeys()) {
+            jdbcTemplate.execute(sql);
+            recreated.add(sql);
+        }
+    }
+
+    private void restartIdentities() {
+        for (Table table : TABLES) {
+            if (table.identity()) {
+                Long next = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from " + table.qualifiedName(), Long.class);
+                jdbcTemplate.execute("alter table " + table.qualifiedName() + " alter column id restart with " + next);
+            }
+        }
+    }
+
+    private static Object[] read(ResultSet resultSet, List<SnapshotColumn> columns) throws SQLException {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            int index = i + 1;
+            row[i] = switch (columns.get(i).type()) {
+                case BIGINT -> resultSet.getObject(index, Long.class);
+                case INTEGER -> resultSet.getObject(index, Integer.class);
+                case TEXT -> resultSet.getString(index);
+                case DATE -> resultSet.getObject(index, LocalDate.class);
+                case TIMESTAMP -> {
+                    OffsetDateTime timestamp = resultSet.getObject(index, OffsetDateTime.class);
+                    yield timestamp == null ? null : timestamp.toInstant();
+                }
+            };
+        }
+        return row;
+    }
+
+    private static void bind(PreparedStatement statement, List<SnapshotColumn> columns, Object[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            int index = i + 1;
+            Object value = row[i];
+            switch (columns.get(i).type()) {
+                case BIGINT -> statement.setObject(index, value, Types.BIGINT);
+                case INTEGER -> statement.setObject(index, value, Types.INTEGER);
+                case TEXT -> statement.setObject(index, value, Types.VARCHAR);
+                case DATE -> statement.setObject(index, value, Types.DATE);
+                case TIMESTAMP -> statement.setObject(index,
+                        value == null ? null : ((Instant) value).atOffset(ZoneOffset.UTC),
+                        Types.TIMESTAMP_WITH_TIMEZONE);
+            }
+        }
+    }
+
+    private static long elapsedMillis(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private static SnapshotColumn column(String name, SnapshotColumn.Type type) {
+        return new SnapshotColumn(name, type);
+    }
+
+    private record DeferredSchema(List<String> indexes, List<String> foreignKeys) {
+        static final DeferredSchema NONE = new DeferredSchema(List.of(), List.of());
+
+        List<String> statements() {
+            List<String> statements = new ArrayList<>(indexes);
+            statements.addAll(foreignKeys);
+            return statements;
+        }
+    }
+
+    private record Table(String name, boolean identity, List<SnapshotColumn> columns) {
+        Table(String name, boolean identity, SnapshotColumn... columns) {
+            this(name, identity, List.of(columns));
+        }
+
+        String qualifiedName() {
+            return "public." + name;
+        }
+
+        String selectSql() {
+            return "select " + columnList() + " from " + qualifiedName() + " order by " + columns.getFirst().name();
+        }
+
+        String insertSql() {
+            return "insert into " + qualifiedName() + " (" + columnList() + ") values ("
+                    + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        }
+
+        private String columnList() {
+            return columns.stream().map(SnapshotColumn::name).collect(Collectors.joining(", "));
+        }
+    }
+}
@@ -1,21 +1,40 @@
 package bg.tuvarna.devicebackend.services;
 
+import bg.tuvarna.devicebackend.config.TokenRevocationRegistry;
+import bg.tuvarna.devicebackend.config.UserPrincipalCache;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.ChangePasswordVO;
+import bg.tuvarna.devicebackend.models.dtos.DeviceSummaryVO;
 import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
 import bg.tuvarna.devicebackend.models.dtos.UserListing;
 import bg.tuvarna.devicebackend.models.dtos.UserUpdateVO;
+import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.User;
 import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.models.events.UserRegisteredEvent;
+import bg.tuvarna.devicebackend.models.events.UserUpdatedEvent;
 import bg.tuvarna.devicebackend.repositories.UserRepository;
 import bg.tuvarna.devicebackend.utils.CustomPage;
+import bg.tuvarna.devicebackend.utils.SearchNormalizer;
 import lombok.AllArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,19 +43,21 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final DeviceService deviceService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public void register(UserCreateVO userCreateVO) {
-        if (isEmailTaken(userCreateVO.email())) {
-            throw new CustomException("Email already taken", ErrorCode.AlreadyExists);
-        }
-        if (isPhoneTaken(userCreateVO.phone())) {
-            throw new CustomException("Phone already taken", ErrorCode.AlreadyExists);
-        }
-
         User user = new User(userCreateVO);
 
         user.setPassword(passwordEncoder.encode(userCreateVO.password()));
-        user = userRepository.saveAndFlush(user);
+        try {
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw toAlreadyTaken(e);
+        }
+        eventPublisher.publishEvent(new UserRegisteredEvent(user.getId()));
 
         if (
                 userCreateVO.deviceSerialNumber() == null || userCreateVO.deviceSerialNumber().isBlank()
@@ -45,23 +66,31 @@ public class UserService {
             return;
         }
 
-        try {
-            deviceService.alreadyExist(userCreateVO.deviceSerialNumber());
-            deviceService.registerDevice(userCreateVO.deviceSerialNumber(), userCreateVO.purchaseDate(), user);
-        } catch (CustomException e) {
-            userRepository.delete(user);
-            throw e;
+        deviceService.alreadyExist(userCreateVO.deviceSerialNumber());
+        deviceService.registerDevice(userCreateVO.deviceSerialNumber(), userCreateVO.purchaseDate(), user);
+    }
+
+    private RuntimeException toAlreadyTaken(DataIntegrityViolationException e) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                ? violation.getConstraintName()
+                : String.valueOf(e.getMostSpecificCause().getMessage());
+        constraint = constraint.toLowerCase(Locale.ROOT);
+
+        if (constraint.contains("uk_users_email")) {
+            return new CustomException("Email already taken", ErrorCode.AlreadyExists);
         }
+        if (constraint.contains("uk_users_phone")) {
+            return new CustomException("Phone already taken", ErrorCode.AlreadyExists);
+        }
+        return e;
     }
 
     public boolean isEmailTaken(String email) {
-        User user = userRepository.getByEmail(email);
-        return user != null;
+        return userRepository.existsByEmailNormalized(SearchNormalizer.text(email));
     }
 
     public boolean isPhoneTaken(String phone) {
-        User user = userRepository.getByPhone(phone);
-        return user != null;
+        return userRepository.existsByPhoneNormalized(SearchNormalizer.phone(phone));
     }
 
     public User getUserById(Long id) {
@@ -69,15 +98,29 @@ public class UserService {
     }
 
     public User getUserByUsername(String username) {
-        return userRepository.findByEmailOrPhone(username).orElseThrow(() -> new CustomException("User not found", ErrorCode.EntityNotFound));
+        String phone = SearchNormalizer.phone(username);
+        Optional<User> user = phone != null
+                ? userRepository.findFirstByPhoneNormalizedOrderByIdAsc(phone)
+                : userRepository.findFirstByEmailNormalizedOrderByIdAsc(SearchNormalizer.text(username));
+        return user.orElseThrow(() -> new CustomException("User not found", ErrorCode.EntityNotFound));
+    }
+
+    public UserCredentials getCredentialsByUsername(String username) {
+        String phone = SearchNormalizer.phone(username);
+        Optional<UserCredentials> credentials = phone != null
+                ? userRepository.findCredentialsByPhone(phone)
+                : userRepository.findCredentialsByEmail(SearchNormalizer.text(username));
+        return credentials.orElseThrow(() -> new CustomException("User not found", ErrorCode.EntityNotFound));
     }
 
+    @Transactional(readOnly = true)
     public CustomPage<UserListing> getUsers(String searchBy, int page, int size) {
-        Page<User> userPage;
-        if (searchBy == null) {
+        Page<UserListing> userPage;
+        String prefix = SearchNormalizer.text(searchBy);
+        if (prefix == null) {
             userPage = userRepository.getAllUsers(PageRequest.of(page - 1, size));
         } else {
-            userPage = userRepository.searchBy(searchBy, PageRequest.of(page - 1, size));
+            userPage = userRepository.searchBy(prefix, SearchNormalizer.phone(searchBy), PageRequest.of(page - 1, size));
         }
 
         CustomPage<UserListing> customPage = new CustomPage<>();
@@ -86,23 +129,34 @@ public class UserService {
         customPage.setSize(userPage.getSize());
         customPage.setTotalItems(userPage.getTotalElements());
 
+        Map<Long, List<DeviceSummaryVO>> devicesByUser = getDeviceSummaries(
+                userPage.stream().map(UserListing::id).toList(),
+                prefix
+        );
         customPage.setItems(userPage
                 .stream()
-                .peek(user -> {
-                            if (searchBy != null) {
-                                user.setDevices(user.getDevices().stream().filter(
-                                        device -> device.getSerialNumber().contains(searchBy)
-                                ).collect(Collectors.toList()));
-                            }
-                        }
-                )
-                .map(UserListing::new)
+                .map(user -> user.withDevices(devicesByUser.getOrDefault(user.id(), List.of())))
                 .toList()
         );
 
         return customPage;
     }
 
+    private Map<Long, List<DeviceSummaryVO>> getDeviceSummaries(List<Long> userIds, String prefix) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<DeviceSummaryVO> devices = prefix == null
+                ? userRepository.findDeviceSummaries(userIds)
+                : userRepository.findDeviceSummariesBySerialNumber(userIds, prefix);
+        return devices.stream().collect(Collectors.groupingBy(DeviceSummaryVO::userId));
+    }
+
+    public void rehashPassword(Long id, String currentHash, String rawPassword) {
+        userRepository.updatePasswordHash(id, currentHash, passwordEncoder.encode(rawPassword));
+    }
+
     public User updateUser(Long id, UserUpdateVO userUpdateVO) {
         User user = getUserById(id);
 
@@ -110,11 +164,13 @@ public class UserService {
             throw new CustomException("Admin password can't be changed", ErrorCode.Validation);
         }
 
-        if (isEmailTaken(userUpdateVO.email()) && !user.getEmail().equals(userUpdateVO.email())) {
+        if (isEmailTaken(userUpdateVO.email())
+                && !Objects.equals(SearchNormalizer.text(user.getEmail()), SearchNormalizer.text(userUpdateVO.email()))) {
             throw new CustomException("Email already taken", ErrorCode.AlreadyExists);
         }
 
-        if (isPhoneTaken(userUpdateVO.phone()) && !user.getPhone().equals(userUpdateVO.phone())) {
+        if (isPhoneTaken(userUpdateVO.phone())
+                && !Objects.equals(SearchNormalizer.phone(user.getPhone()), SearchNormalizer.phone(userUpdateVO.phone()))) {
             throw new CustomException("Phone already taken", ErrorCode.AlreadyExists);
         }
 
@@ -123,7 +179,16 @@ public class UserService {
         user.setPhone(userUpdateVO.phone());
         user.setEmail(userUpdateVO.email());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userPrincipalCache.evict(id);
+        eventPublisher.publishEvent(new UserUpdatedEvent(id, deviceSerialNumbers(user)));
+        return saved;
+    }
+
+    private static List<String> deviceSerialNumbers(User user) {
+        return user.getDevices() == null
+                ? List.of()
+                : user.getDevices().stream().map(Device::getSerialNumber).toList();
     }
 
     public void updatePassword(Long id, ChangePasswordVO passwordVO) {
@@ -132,8 +197,12 @@ public class UserService {
             throw new CustomException("Admin password can't be changed", ErrorCode.Validation);
         }
         if (passwordEncoder.matches(passwordVO.oldPassword(), user.getPassword())) {
+            Instant tokensValidAfter = Instant.now().truncatedTo(ChronoUnit.SECONDS);
             user.setPassword(passwordEncoder.encode(passwordVO.newPassword()));
+            user.setTokensValidAfter(tokensValidAfter);
             userRepository.save(user);
+            tokenRevocationRegistry.revoke(id, tokensValidAfter);
+            userPrincipalCache.evict(id);
         } else {
             throw new CustomException("Old password didn't match", ErrorCode.Validation);
         }
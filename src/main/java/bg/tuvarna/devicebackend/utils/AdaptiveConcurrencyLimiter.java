@@ -0,0 +1,76 @@
+package bg.tuvarna.devicebackend.utils;
+
+import bg.tuvarna.devicebackend.models.enums.RequestPriority;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limit over in-flight requests. {@link #update} is called periodically with the
+ * average time requests waited for a database connection: above the threshold the limit shrinks
+ * by the backoff ratio, otherwise it grows by one if the last interval used at least half of it.
+ * Each priority may only fill its share of the limit, so low-priority requests are rejected first
+ * as the limit comes down.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long waitThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder[] rejected = new LongAdder[RequestPriority.values().length];
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long waitThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.waitThresholdNanos = waitThresholdNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.share()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected[priority.ordinal()].increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void update(long averageWaitNanos) {
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (averageWaitNanos > waitThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (peak >= limit / 2) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejectedCount(RequestPriority priority) {
+        return rejected[priority.ordinal()].sum();
+    }
+}
@@ -0,0 +1,104 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded map whose entries carry their own expiry time. Lookups do not allocate;
+ * when the map is full, expired entries are swept first and then the oldest-iterated
+ * entries are dropped until a tenth of the capacity is free again.
+ */
+public class ExpiringCache<K, V> {
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(K key, V value, long expiresAt) {
+        if (maxEntries <= 0 || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom();
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void makeRoom() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            int target = maxEntries - Math.max(1, maxEntries / 10);
+            Iterator<Entry<V>> expired = entries.values().iterator();
+            while (expired.hasNext()) {
+                if (expired.next().expiresAt() <= now) {
+                    expired.remove();
+                    evictions.increment();
+                }
+            }
+            Iterator<K> keys = entries.keySet().iterator();
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.increment();
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
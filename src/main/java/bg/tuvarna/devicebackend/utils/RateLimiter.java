@@ -0,0 +1,87 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket implemented as GCRA: each key holds a single atomic "theoretical arrival time",
+ * so acquiring is one CAS loop without locks. A key whose arrival time is in the past is a full
+ * bucket, which is what makes the key map safe to sweep when it reaches its bound. If that is not
+ * enough, the keys with the earliest arrival times go next: their buckets are the closest to full,
+ * so dropping them forgives the least, and a client that drained its bucket keeps its state.
+ */
+public class RateLimiter {
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RateLimiter(int capacity, double refillPerSecond, int maxKeys) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.toleranceNanos = emissionIntervalNanos * (Math.max(1, capacity) - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * @return 0 when the request is allowed, otherwise the nanoseconds until it would be
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            if (buckets.size() >= maxKeys) {
+                makeRoom(nowNanos);
+            }
+            arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+
+        while (true) {
+            long current = arrival.get();
+            long tat = Math.max(current, nowNanos);
+            long wait = tat - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (arrival.compareAndSet(current, tat + emissionIntervalNanos)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long allowedCount() {
+        return allowed.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    private void makeRoom(long nowNanos) {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(arrival -> arrival.get() <= nowNanos);
+
+            int excess = buckets.size() - (maxKeys - maxKeys / 10);
+            if (excess > 0) {
+                long[] arrivals = buckets.values().stream().mapToLong(AtomicLong::get).sorted().toArray();
+                long threshold = arrivals[Math.min(excess, arrivals.length) - 1];
+                buckets.values().removeIf(arrival -> arrival.get() <= threshold);
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+}
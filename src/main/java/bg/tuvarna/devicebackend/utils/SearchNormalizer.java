@@ -0,0 +1,62 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.util.Locale;
+
+/**
+ * Produces the values stored in the normalized lookup columns. Search terms have to go
+ * through the same functions so they compare equal to what was written. Changing a function
+ * needs a migration that rewrites the stored values.
+ */
+public class SearchNormalizer {
+    private static final String DEFAULT_COUNTRY_CODE = "359";
+
+    private SearchNormalizer() {
+    }
+
+    public static String text(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * E.164 form: {@code +} followed by digits. Spaces, dashes, dots, slashes and brackets are
+     * dropped, {@code 00} is read as the international prefix and a single leading {@code 0}
+     * as a national number in the default country. Returns {@code null} for anything that
+     * is not a phone number, such as an email address.
+     */
+    public static String phone(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        StringBuilder digits = new StringBuilder(value.length());
+        boolean international = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && digits.isEmpty() && !international) {
+                international = true;
+            } else if (c != ' ' && c != '-' && c != '.' && c != '/' && c != '(' && c != ')') {
+                return null;
+            }
+        }
+
+        if (digits.isEmpty()) {
+            return null;
+        }
+        if (international) {
+            return "+" + digits;
+        }
+        if (digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0') {
+            return "+" + digits.substring(2);
+        }
+        if (digits.charAt(0) == '0') {
+            return "+" + DEFAULT_COUNTRY_CODE + digits.substring(1);
+        }
+        return "+" + digits;
+    }
+}
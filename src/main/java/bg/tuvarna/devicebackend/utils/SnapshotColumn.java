@@ -0,0 +1,15 @@
+package bg.tuvarna.devicebackend.utils;
+
+/**
+ * A column of a snapshot section. Values are carried as {@link Long}, {@link Integer},
+ * {@link String}, {@link java.time.LocalDate} or {@link java.time.Instant} depending on the type.
+ */
+public record SnapshotColumn(String name, Type type) {
+    public enum Type {
+        BIGINT,
+        INTEGER,
+        TEXT,
+        DATE,
+        TIMESTAMP
+    }
+}
@@ -0,0 +1,180 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads snapshots written by {@link SnapshotWriter}. Blocks are checksum-verified as they are read
+ * but decoded separately, so the caller can hand them to other threads.
+ */
+public class SnapshotReader {
+    private static final int MAX_BLOCK_BYTES = 64 * 1024 * 1024;
+
+    private final DataInputStream in;
+    private final CRC32C crc = new CRC32C();
+
+    private Section section;
+    private long sectionRows;
+
+    public SnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        try {
+            if (this.in.readInt() != SnapshotWriter.MAGIC) {
+                throw new IOException("Not a snapshot");
+            }
+            int version = this.in.readInt();
+            if (version != SnapshotWriter.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Not a snapshot", e);
+        }
+    }
+
+    /**
+     * @return the next section, or null once the end marker is reached
+     */
+    public Section nextSection() throws IOException {
+        if (section != null) {
+            throw new IllegalStateException("Section " + section.name() + " has unread blocks");
+        }
+        try {
+            int marker = in.readUnsignedByte();
+            if (marker == SnapshotWriter.END) {
+                return null;
+            }
+            if (marker != SnapshotWriter.SECTION) {
+                throw new IOException("Corrupted snapshot: unexpected marker " + marker);
+            }
+            String name = in.readUTF();
+            int columnCount = in.readUnsignedByte();
+            SnapshotColumn.Type[] types = SnapshotColumn.Type.values();
+            List<SnapshotColumn> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                String column = in.readUTF();
+                int type = in.readUnsignedByte();
+                if (type >= types.length) {
+                    throw new IOException("Corrupted snapshot: unknown type of " + name + "." + column);
+                }
+                columns.add(new SnapshotColumn(column, types[type]));
+            }
+            section = new Section(name, List.copyOf(columns));
+            sectionRows = 0;
+            return section;
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    /**
+     * @return the next verified block of the current section, or null at the end of the section
+     */
+    public Block nextBlock() throws IOException {
+        if (section == null) {
+            throw new IllegalStateException("No section is open");
+        }
+        try {
+            int rows = in.readInt();
+            if (rows == 0) {
+                long expected = in.readLong();
+                if (expected != sectionRows) {
+                    throw new IOException("Corrupted snapshot: " + section.name() + " has "
+                            + sectionRows + " rows, expected " + expected);
+                }
+                section = null;
+                return null;
+            }
+            int length = in.readInt();
+            if (rows < 0 || length < 0 || length > MAX_BLOCK_BYTES) {
+                throw new IOException("Corrupted snapshot: bad block header in " + section.name());
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != in.readInt()) {
+                throw new IOException("Corrupted snapshot: checksum mismatch in " + section.name());
+            }
+            sectionRows += rows;
+            return new Block(section, rows, payload);
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot", e);
+        }
+    }
+
+    public record Section(String name, List<SnapshotColumn> columns) {
+    }
+
+    public record Block(Section section, int rowCount, byte[] payload) {
+        public List<Object[]> rows() throws IOException {
+            List<SnapshotColumn> columns = section.columns();
+            List<Object[]> rows = new ArrayList<>(rowCount);
+            Decoder decoder = new Decoder(payload);
+            try {
+                for (int r = 0; r < rowCount; r++) {
+                    long nullMask = decoder.varLong();
+                    Object[] row = new Object[columns.size()];
+                    for (int i = 0; i < row.length; i++) {
+                        if ((nullMask & (1L << i)) == 0) {
+                            row[i] = decoder.value(columns.get(i).type());
+                        }
+                    }
+                    rows.add(row);
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Corrupted snapshot: block of " + section.name() + " ends early", e);
+            }
+            if (decoder.position != payload.length) {
+                throw new IOException("Corrupted snapshot: block of " + section.name() + " has trailing bytes");
+            }
+            return rows;
+        }
+    }
+
+    private static final class Decoder {
+        private final byte[] bytes;
+        private int position;
+
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        Object value(SnapshotColumn.Type type) {
+            return switch (type) {
+                case BIGINT -> unzigzag(varLong());
+                case INTEGER -> (int) unzigzag(varLong());
+                case TEXT -> {
+                    int length = (int) varLong();
+                    String text = new String(bytes, position, length, StandardCharsets.UTF_8);
+                    position += length;
+                    yield text;
+                }
+                case DATE -> LocalDate.ofEpochDay(unzigzag(varLong()));
+                case TIMESTAMP -> Instant.ofEpochSecond(unzigzag(varLong()), varLong());
+            };
+        }
+
+        long varLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package bg.tuvarna.devicebackend.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Streams tables into the snapshot format read by {@link SnapshotReader}:
+ * <pre>
+ * snapshot := MAGIC VERSION section* 0x00
+ * section  := 0x01 name columnCount (columnName columnType)* block* 0 rowCount
+ * block    := rowCount length payload crc32c
+ * row      := nullMask value*
+ * </pre>
+ * Integers, dates (epoch day) and timestamps (epoch second, nano) are zigzag varints and text is a
+ * varint length followed by UTF-8, so a row costs roughly its data. Each block carries its own
+ * checksum and the section trailer its row count, so truncated or damaged snapshots are rejected.
+ */
+public class SnapshotWriter {
+    static final int MAGIC = 0x44534E50;
+    static final int VERSION = 1;
+    static final int SECTION = 1;
+    static final int END = 0;
+
+    private final DataOutputStream out;
+    private final int rowsPerBlock;
+    private final Block block = new Block();
+    private final CRC32C crc = new CRC32C();
+
+    private List<SnapshotColumn> columns;
+    private int blockRows;
+    private long sectionRows;
+
+    public SnapshotWriter(OutputStream out, int rowsPerBlock) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.rowsPerBlock = rowsPerBlock;
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    public void beginSection(String name, List<SnapshotColumn> columns) throws IOException {
+        if (columns.size() > Long.SIZE - 1) {
+            throw new IllegalArgumentException("Too many columns in " + name);
+        }
+        this.columns = columns;
+        this.blockRows = 0;
+        this.sectionRows = 0;
+        out.writeByte(SECTION);
+        out.writeUTF(name);
+        out.writeByte(columns.size());
+        for (SnapshotColumn column : columns) {
+            out.writeUTF(column.name());
+            out.writeByte(column.type().ordinal());
+        }
+    }
+
+    public void writeRow(Object... values) throws IOException {
+        long nullMask = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nullMask |= 1L << i;
+            }
+        }
+        block.writeVarLong(nullMask);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                writeValue(columns.get(i).type(), values[i]);
+            }
+        }
+        sectionRows++;
+        if (++blockRows == rowsPerBlock) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * @return the number of rows written to the section
+     */
+    public long endSection() throws IOException {
+        flushBlock();
+        out.writeInt(0);
+        out.writeLong(sectionRows);
+        columns = null;
+        return sectionRows;
+    }
+
+    public void finish() throws IOException {
+        out.writeByte(END);
+        out.flush();
+    }
+
+    private void writeValue(SnapshotColumn.Type type, Object value) {
+        switch (type) {
+            case BIGINT -> block.writeVarLong(zigzag((Long) value));
+            case INTEGER -> block.writeVarLong(zigzag((Integer) value));
+            case TEXT -> {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                block.writeVarLong(bytes.length);
+                block.write(bytes, 0, bytes.length);
+            }
+            case DATE -> block.writeVarLong(zigzag(((LocalDate) value).toEpochDay()));
+            case TIMESTAMP -> {
+                Instant instant = (Instant) value;
+                block.writeVarLong(zigzag(instant.getEpochSecond()));
+                block.writeVarLong(instant.getNano());
+            }
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockRows == 0) {
+            return;
+        }
+        crc.reset();
+        block.checksum(crc);
+        out.writeInt(blockRows);
+        out.writeInt(block.size());
+        block.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        block.reset();
+        blockRows = 0;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static final class Block extends ByteArrayOutputStream {
+        Block() {
+            super(64 * 1024);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void checksum(CRC32C crc) {
+            crc.update(buf, 0, count);
+        }
+    }
+}
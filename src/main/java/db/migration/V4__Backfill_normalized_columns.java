@@ -0,0 +1,125 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Fills the columns added in V3 for existing rows. {@link #text} and {@link #phone} are a frozen
+ * copy of {@code SearchNormalizer} as it was when this version shipped, so the migration
+ * computes the same values on every database even if the application's normalization changes.
+ * A change to normalization needs a new migration that rewrites the columns.
+ */
+public class V4__Backfill_normalized_columns extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(
+                     "update public.users set email_normalized = ?, phone_normalized = ?, full_name_normalized = ? where id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = select.executeQuery("select id, email, phone, full_name from public.users")) {
+                int pending = 0;
+                while (rows.next()) {
+                    update.setString(1, text(rows.getString("email")));
+                    update.setString(2, phone(rows.getString("phone")));
+                    update.setString(3, text(rows.getString("full_name")));
+                    update.setLong(4, rows.getLong("id"));
+                    pending = addBatch(update, pending);
+                }
+                update.executeBatch();
+            }
+        }
+
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(
+                     "update public.devices set serial_number_normalized = ? where serial_number = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = select.executeQuery("select serial_number from public.devices")) {
+                int pending = 0;
+                while (rows.next()) {
+                    String serialNumber = rows.getString("serial_number");
+                    update.setString(1, text(serialNumber));
+                    update.setString(2, serialNumber);
+                    pending = addBatch(update, pending);
+                }
+                update.executeBatch();
+            }
+        }
+
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(
+                     "update public.passports set name_normalized = ?, model_normalized = ? where id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = select.executeQuery("select id, name, model from public.passports")) {
+                int pending = 0;
+                while (rows.next()) {
+                    update.setString(1, text(rows.getString("name")));
+                    update.setString(2, text(rows.getString("model")));
+                    update.setLong(3, rows.getLong("id"));
+                    pending = addBatch(update, pending);
+                }
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static String text(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static String phone(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        StringBuilder digits = new StringBuilder(value.length());
+        boolean international = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && digits.isEmpty() && !international) {
+                international = true;
+            } else if (c != ' ' && c != '-' && c != '.' && c != '/' && c != '(' && c != ')') {
+                return null;
+            }
+        }
+
+        if (digits.isEmpty()) {
+            return null;
+        }
+        if (international) {
+            return "+" + digits;
+        }
+        if (digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0') {
+            return "+" + digits.substring(2);
+        }
+        if (digits.charAt(0) == '0') {
+            return "+359" + digits.substring(1);
+        }
+        return "+" + digits;
+    }
+
+    private static int addBatch(PreparedStatement update, int pending) throws SQLException {
+        update.addBatch();
+        if (++pending < BATCH_SIZE) {
+            return pending;
+        }
+        update.executeBatch();
+        return 0;
+    }
+}
@@ -0,0 +1,59 @@
+package db.migration;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds the unique constraints registration relies on. Databases baselined from the
+ * ddl-auto schema may already hold duplicates, which the constraints would reject with a bare
+ * SQL error; they are listed instead so they can be resolved before migrating again.
+ */
+public class V8__Unique_user_contacts extends BaseJavaMigration {
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        List<String> duplicates = new ArrayList<>();
+        duplicates.addAll(duplicates(connection, "email"));
+        duplicates.addAll(duplicates(connection, "phone"));
+        if (!duplicates.isEmpty()) {
+            throw new FlywayException(
+                    "Users share an email or phone, resolve these before migrating:\n" + String.join("\n", duplicates)
+            );
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table public.users add constraint uk_users_email unique (email)");
+            statement.execute("alter table public.users add constraint uk_users_phone unique (phone)");
+        }
+    }
+
+    /**
+     * One line per value held by more than one user, with the ids of those users.
+     */
+    static List<String> duplicates(Connection connection, String column) throws SQLException {
+        Map<String, List<Long>> ids = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "select id, " + column + " from public.users where " + column + " in ("
+                             + "select " + column + " from public.users group by " + column + " having count(*) > 1"
+                             + ") order by " + column + ", id")) {
+            while (rows.next()) {
+                ids.computeIfAbsent(rows.getString(2), value -> new ArrayList<>()).add(rows.getLong(1));
+            }
+        }
+        List<String> duplicates = new ArrayList<>();
+        ids.forEach((value, users) -> duplicates.add(column + " '" + value + "': users " + users));
+        return duplicates;
+    }
+}
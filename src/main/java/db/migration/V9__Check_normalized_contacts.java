@@ -0,0 +1,27 @@
+package db.migration;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * V10 makes the normalized email and phone unique. Users that differ only in case or phone
+ * formatting already pass V8, so they are listed here to be merged before migrating again.
+ */
+public class V9__Check_normalized_contacts extends BaseJavaMigration {
+    @Override
+    public void migrate(Context context) throws Exception {
+        List<String> duplicates = new ArrayList<>();
+        duplicates.addAll(V8__Unique_user_contacts.duplicates(context.getConnection(), "email_normalized"));
+        duplicates.addAll(V8__Unique_user_contacts.duplicates(context.getConnection(), "phone_normalized"));
+        if (!duplicates.isEmpty()) {
+            throw new FlywayException(
+                    "Users share an email or phone once normalized, merge these before migrating:\n"
+                            + String.join("\n", duplicates)
+            );
+        }
+    }
+}
@@ -0,0 +1,50 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Existing databases are
+-- baselined at this version, so this script only runs against empty databases and must stay
+-- exactly what ddl-auto produced; later changes go into new versions.
+
+create table public.users
+(
+    id                 bigint generated by default as identity,
+    address            varchar(255),
+    email              varchar(255),
+    full_name          varchar(255),
+    password           varchar(255),
+    phone              varchar(255),
+    role               varchar(255) check (role in ('ADMIN', 'USER')),
+    primary key (id)
+);
+
+create table public.passports
+(
+    id                 bigint generated by default as identity,
+    from_serial_number integer not null,
+    model              varchar(255),
+    name               varchar(255),
+    serial_prefix      varchar(255),
+    to_serial_number   integer not null,
+    warranty_months    integer not null,
+    primary key (id)
+);
+
+create table public.devices
+(
+    serial_number            varchar(255) not null,
+    comment                  varchar(255),
+    purchase_date            date,
+    warranty_expiration_date date,
+    passport_id              bigint,
+    user_id                  bigint,
+    primary key (serial_number),
+    constraint fk_devices_passport foreign key (passport_id) references public.passports (id),
+    constraint fk_devices_user foreign key (user_id) references public.users (id)
+);
+
+create table public.renovations
+(
+    id                   bigint generated by default as identity,
+    description          varchar(255),
+    renovation_date      date,
+    device_serial_number varchar(255),
+    primary key (id),
+    constraint fk_renovations_device foreign key (device_serial_number) references public.devices (serial_number)
+);
@@ -0,0 +1,13 @@
+-- users.email and users.phone are covered by the unique constraints from V8.
+
+-- PassportRepository.findBySerialPrefixIn (serial lookup) and the overlap check on create/update.
+create index idx_passports_serial_prefix_range on public.passports (serial_prefix, from_serial_number, to_serial_number);
+
+-- User.devices, UserRepository.findDeviceSummaries and the device exists-subquery in user search.
+create index idx_devices_user_id on public.devices (user_id);
+
+-- Device.passport joins and the foreign key check when a passport is deleted.
+create index idx_devices_passport_id on public.devices (passport_id);
+
+-- Device.renovations and cascading deletes from devices.
+create index idx_renovations_device_serial_number on public.renovations (device_serial_number);
@@ -0,0 +1,11 @@
+-- Normalized copies of the searched columns, maintained by NormalizedColumnsListener.
+-- Existing rows are filled in by V4, the indexes are created in V5 once the data is there.
+
+alter table public.users add column email_normalized varchar(255);
+alter table public.users add column phone_normalized varchar(255);
+alter table public.users add column full_name_normalized varchar(255);
+
+alter table public.devices add column serial_number_normalized varchar(255);
+
+alter table public.passports add column name_normalized varchar(255);
+alter table public.passports add column model_normalized varchar(255);
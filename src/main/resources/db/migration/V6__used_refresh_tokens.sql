@@ -0,0 +1,12 @@
+-- Refresh tokens that were already exchanged, keyed by their jti. A second exchange of the same
+-- token fails on the primary key. Rows are purged once the token would have expired anyway.
+
+create table public.used_refresh_tokens
+(
+    jti        varchar(36)                 not null,
+    user_id    bigint                      not null,
+    expires_at timestamp(6) with time zone not null,
+    primary key (jti)
+);
+
+create index idx_used_refresh_tokens_expires_at on public.used_refresh_tokens (expires_at);
@@ -0,0 +1,5 @@
+-- Per-user token revocation epoch, see TokenRevocationRegistry.
+alter table public.users add column tokens_valid_after timestamp(6) with time zone;
+
+-- TokenRevocationRegistry sync (tokens_valid_after > ?).
+create index idx_users_tokens_valid_after on public.users (tokens_valid_after);
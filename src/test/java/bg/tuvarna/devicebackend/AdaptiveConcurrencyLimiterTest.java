@@ -0,0 +1,71 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.models.enums.RequestPriority;
+import bg.tuvarna.devicebackend.utils.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void tryAcquire_shouldShedLowPriorityFirst_whenLimitIsFilling() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, THRESHOLD);
+        assertTrue(limiter.tryAcquire(RequestPriority.LOW));
+        assertTrue(limiter.tryAcquire(RequestPriority.LOW));
+
+        // Act
+        boolean low = limiter.tryAcquire(RequestPriority.LOW);
+        boolean normal = limiter.tryAcquire(RequestPriority.NORMAL);
+        boolean high = limiter.tryAcquire(RequestPriority.HIGH);
+        boolean overLimit = limiter.tryAcquire(RequestPriority.HIGH);
+
+        // Assert
+        assertFalse(low);
+        assertTrue(normal);
+        assertTrue(high);
+        assertFalse(overLimit);
+        assertEquals(4, limiter.inFlight());
+        assertEquals(1, limiter.rejectedCount(RequestPriority.LOW));
+        assertEquals(1, limiter.rejectedCount(RequestPriority.HIGH));
+    }
+
+    @Test
+    void update_shouldBackOff_whenConnectionWaitExceedsThreshold() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, 0.5, THRESHOLD);
+
+        // Act
+        limiter.update(THRESHOLD + 1);
+        int afterFirst = limiter.limit();
+        limiter.update(THRESHOLD + 1);
+        limiter.update(THRESHOLD + 1);
+
+        // Assert
+        assertEquals(4, afterFirst);
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void update_shouldGrowOnlyWhenLimitIsUsed() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, THRESHOLD);
+
+        // Act
+        limiter.update(0);
+        int idle = limiter.limit();
+        limiter.tryAcquire(RequestPriority.HIGH);
+        limiter.tryAcquire(RequestPriority.HIGH);
+        limiter.release();
+        limiter.release();
+        limiter.update(0);
+
+        // Assert
+        assertEquals(4, idle);
+        assertEquals(5, limiter.limit());
+    }
+}
@@ -0,0 +1,94 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.AdmissionControlFilter;
+import bg.tuvarna.devicebackend.config.BoundedDataSource;
+import bg.tuvarna.devicebackend.config.Bulkhead;
+import bg.tuvarna.devicebackend.config.DataSourceConfig;
+import bg.tuvarna.devicebackend.models.enums.RequestClass;
+import bg.tuvarna.devicebackend.utils.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+    private static final String PUBLIC_ROUTE = "/api/v1/devices/exists/SN1";
+    private static final String ADMIN_ROUTE = "/api/v1/devices";
+
+    private final BoundedDataSource dataSource = new BoundedDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:admission;DB_CLOSE_DELAY=-1"),
+            new Bulkhead.Limits(10, 50),
+            Map.of(
+                    RequestClass.PUBLIC, new Bulkhead.Limits(1, 50),
+                    RequestClass.ADMIN, new Bulkhead.Limits(1, 50)
+            ),
+            Set.of(RequestClass.PUBLIC)
+    );
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter(20, 1, 100, 0.5, TimeUnit.MILLISECONDS.toNanos(10));
+    private final AdmissionControlFilter filter =
+            new AdmissionControlFilter(limiter, List.of(dataSource), List.of(), new ObjectMapper());
+
+    @Test
+    void adjustLimit_shouldLowerLimit_whenSignallingClassWaitsInItsPartition() throws Exception {
+        // Arrange
+        asRequest(PUBLIC_ROUTE, () -> {
+            try (Connection held = dataSource.getConnection()) {
+                assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            }
+        });
+
+        // Act
+        filter.adjustLimit();
+
+        // Assert
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void adjustLimit_shouldKeepLimit_whenOnlyNonSignallingClassWaits() throws Exception {
+        // Arrange
+        asRequest(ADMIN_ROUTE, () -> {
+            try (Connection held = dataSource.getConnection()) {
+                assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            }
+        });
+
+        // Act
+        filter.adjustLimit();
+
+        // Assert
+        assertEquals(20, limiter.limit());
+    }
+
+    private static void asRequest(String path, RequestBody body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        new DataSourceConfig().requestClassFilter().doFilter(
+                request,
+                new MockHttpServletResponse(),
+                (filteredRequest, response) -> {
+                    try {
+                        body.run();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+        );
+    }
+
+    @FunctionalInterface
+    private interface RequestBody {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,112 @@
+package bg.tuvarna.devicebackend;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrates a database that was created by ddl-auto before Flyway, the way production is baselined.
+ */
+class BaselineMigrationTest {
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baseline-" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+        );
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target("1")
+                .load()
+                .migrate();
+        jdbcTemplate.execute("drop table public.flyway_schema_history");
+    }
+
+    @Test
+    void migrate_shouldAddSeriesSchema_whenDatabaseIsBaselined() {
+        // Arrange
+        jdbcTemplate.update("insert into public.users (email, phone, role) values ('a@example.com', '0888000001', 'USER')");
+
+        // Act
+        flyway().migrate();
+
+        // Assert
+        assertEquals(1, count("select count(*) from information_schema.columns"
+                + " where table_name = 'users' and column_name = 'tokens_valid_after'"));
+        assertEquals(2, count("select count(*) from information_schema.table_constraints"
+                + " where table_name = 'users' and constraint_name in ('uk_users_email', 'uk_users_phone')"));
+        assertEquals(2, count("select count(*) from information_schema.indexes"
+                + " where table_name = 'users' and index_name in ('uk_users_email_normalized', 'uk_users_phone_normalized')"));
+    }
+
+    @Test
+    void migrate_shouldBackfillNormalizedColumns_whenDatabaseIsBaselined() {
+        // Arrange
+        jdbcTemplate.update("insert into public.users (email, phone, role) values (' A@Example.com ', '0888 000-001', 'USER')");
+
+        // Act
+        flyway().migrate();
+
+        // Assert
+        assertEquals("a@example.com", jdbcTemplate.queryForObject("select email_normalized from public.users", String.class));
+        assertEquals("+359888000001", jdbcTemplate.queryForObject("select phone_normalized from public.users", String.class));
+    }
+
+    @Test
+    void migrate_shouldListDuplicates_whenBaselinedUsersShareEmail() {
+        // Arrange
+        jdbcTemplate.update("insert into public.users (email, phone, role) values ('a@example.com', '0888000001', 'USER')");
+        jdbcTemplate.update("insert into public.users (email, phone, role) values ('a@example.com', '0888000002', 'USER')");
+
+        // Act
+        FlywayException exception = assertThrows(FlywayException.class, () -> flyway().migrate());
+
+        // Assert
+        assertTrue(rootMessage(exception).contains("email 'a@example.com': users [1, 2]"), rootMessage(exception));
+    }
+
+    @Test
+    void migrate_shouldListDuplicates_whenBaselinedEmailsDifferOnlyInCase() {
+        // Arrange
+        jdbcTemplate.update("insert into public.users (email, phone, role) values ('a@example.com', '0888000001', 'USER')");
+        jdbcTemplate.update("insert into public.users (email, phone, role) values ('A@Example.com', '0888000002', 'USER')");
+
+        // Act
+        FlywayException exception = assertThrows(FlywayException.class, () -> flyway().migrate());
+
+        // Assert
+        assertTrue(rootMessage(exception).contains("email_normalized 'a@example.com': users [1, 2]"), rootMessage(exception));
+    }
+
+    private static String rootMessage(Throwable exception) {
+        Throwable cause = exception;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    private Flyway flyway() {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
@@ -0,0 +1,32 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.BcryptCostCalibrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BcryptCostCalibratorTest {
+
+    @Test
+    void cost_shouldStayWithinBounds_whenCalibrated() {
+        // Act
+        BcryptCostCalibrator calibrator = new BcryptCostCalibrator(0, 50, 4, 6);
+
+        // Assert
+        assertTrue(calibrator.cost() >= 4);
+        assertTrue(calibrator.cost() <= 6);
+    }
+
+    @Test
+    void needsRehash_shouldReturnTrue_onlyWhenStoredCostIsLower() {
+        // Arrange
+        BcryptCostCalibrator calibrator = new BcryptCostCalibrator(5, 0, 0, 0);
+
+        // Act & Assert
+        assertTrue(calibrator.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(calibrator.needsRehash(new BCryptPasswordEncoder(5).encode("secret")));
+        assertFalse(calibrator.needsRehash(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(calibrator.needsRehash("not-a-bcrypt-hash"));
+    }
+}
@@ -0,0 +1,168 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.BoundedDataSource;
+import bg.tuvarna.devicebackend.config.Bulkhead;
+import bg.tuvarna.devicebackend.config.DataSourceConfig;
+import bg.tuvarna.devicebackend.models.enums.RequestClass;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedDataSourceTest {
+    private static final String PUBLIC_ROUTE = "/api/v1/devices/exists/SN1";
+    private static final String ADMIN_ROUTE = "/api/v1/devices";
+
+    private final BoundedDataSource dataSource = new BoundedDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:bulkheads;DB_CLOSE_DELAY=-1"),
+            new Bulkhead.Limits(4, 50),
+            Map.of(
+                    RequestClass.PUBLIC, new Bulkhead.Limits(2, 50),
+                    RequestClass.ADMIN, new Bulkhead.Limits(1, 50)
+            ),
+            Set.of(RequestClass.PUBLIC)
+    );
+
+    @Test
+    void getConnection_shouldNotBlockPublicRequests_whenAdminPartitionIsExhausted() throws Exception {
+        // Act & Assert
+        asRequest(ADMIN_ROUTE, () -> {
+            try (Connection held = dataSource.getConnection()) {
+                assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+                asRequest(PUBLIC_ROUTE, () -> {
+                    try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+                        assertEquals(3, dataSource.getActive());
+                    }
+                });
+            }
+        });
+        Bulkhead admin = dataSource.getPartitions().get(RequestClass.ADMIN);
+        assertEquals(1, admin.getRejections());
+        assertEquals(0, admin.getActive());
+        assertEquals(0, dataSource.getActive());
+    }
+
+    @Test
+    void getAcquireWaitNanos_shouldExcludePartitionWaits_ofNonSignallingClasses() throws Exception {
+        // Act
+        asRequest(ADMIN_ROUTE, () -> {
+            try (Connection held = dataSource.getConnection()) {
+                assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            }
+        });
+
+        // Assert
+        Bulkhead admin = dataSource.getPartitions().get(RequestClass.ADMIN);
+        assertTrue(admin.getAcquireWaitNanos() >= 50_000_000L);
+        assertEquals(1, dataSource.getAcquisitions());
+        assertTrue(dataSource.getAcquireWaitNanos() < 50_000_000L);
+    }
+
+    @Test
+    void getAcquireWaitNanos_shouldIncludePartitionWaits_ofSignallingClasses() throws Exception {
+        // Act
+        asRequest(PUBLIC_ROUTE, () -> {
+            try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+                assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            }
+        });
+
+        // Assert
+        assertEquals(3, dataSource.getAcquisitions());
+        assertTrue(dataSource.getAcquireWaitNanos() >= 50_000_000L);
+    }
+
+    @Test
+    void getConnection_shouldUseOnlyOverallLimit_outsideRequests() throws SQLException {
+        // Act
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection();
+             Connection third = dataSource.getConnection()) {
+
+            // Assert
+            assertEquals(3, dataSource.getActive());
+            assertEquals(0, dataSource.getPartitions().get(RequestClass.PUBLIC).getActive());
+        }
+    }
+
+    @Test
+    void getConnection_shouldReleasePermitOnce_whenConnectionIsClosedTwice() throws SQLException {
+        // Arrange
+        Connection connection = dataSource.getConnection();
+
+        // Act
+        connection.close();
+        connection.close();
+
+        // Assert
+        assertEquals(0, dataSource.getActive());
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection();
+             Connection third = dataSource.getConnection();
+             Connection fourth = dataSource.getConnection()) {
+            assertEquals(4, dataSource.getActive());
+        }
+    }
+
+    @Test
+    void getConnection_shouldFailAfterTimeout_whenAllPermitsAreHeld() throws SQLException {
+        // Arrange
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection();
+             Connection third = dataSource.getConnection();
+             Connection fourth = dataSource.getConnection()) {
+            long started = System.nanoTime();
+
+            // Act & Assert
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            assertTrue(System.nanoTime() - started >= 50_000_000L);
+        }
+        assertEquals(0, dataSource.getActive());
+    }
+
+    @Test
+    void getConnection_shouldReleasePermit_whenTargetDataSourceFails() {
+        // Arrange
+        BoundedDataSource failing = new BoundedDataSource(
+                new DriverManagerDataSource("jdbc:unknown:driver"),
+                new Bulkhead.Limits(1, 50),
+                Map.of()
+        );
+
+        // Act
+        assertThrows(SQLException.class, failing::getConnection);
+
+        // Assert
+        assertEquals(0, failing.getActive());
+    }
+
+    private static void asRequest(String path, RequestBody body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        new DataSourceConfig().requestClassFilter().doFilter(
+                request,
+                new MockHttpServletResponse(),
+                (filteredRequest, response) -> {
+                    try {
+                        body.run();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+        );
+    }
+
+    @FunctionalInterface
+    private interface RequestBody {
+        void run() throws Exception;
+    }
+}
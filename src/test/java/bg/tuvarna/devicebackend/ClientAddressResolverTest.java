@@ -0,0 +1,54 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.ClientAddressResolver;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientAddressResolverTest {
+
+    @Test
+    void resolve_shouldIgnoreForwardedFor_whenPeerIsNotTrusted() {
+        // Arrange
+        ClientAddressResolver resolver = new ClientAddressResolver(List.of());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("X-Forwarded-For", "198.51.100.1");
+
+        // Act & Assert
+        assertEquals("203.0.113.7", resolver.resolve(request));
+    }
+
+    @Test
+    void resolve_shouldReturnFirstUntrustedHop_whenPeerIsTrustedProxy() {
+        // Arrange
+        ClientAddressResolver resolver = new ClientAddressResolver(List.of("10.0.0.0/8"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.2");
+        request.addHeader("X-Forwarded-For", "1.1.1.1, 198.51.100.1, 10.0.0.5");
+
+        // Act & Assert
+        assertEquals("198.51.100.1", resolver.resolve(request));
+    }
+
+    @Test
+    void resolve_shouldUseSocketPeer_whenRequestIsWrappedWithForwardedAddress() {
+        // Arrange
+        ClientAddressResolver resolver = new ClientAddressResolver(List.of());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+        HttpServletRequestWrapper forwarded = new HttpServletRequestWrapper(request) {
+            @Override
+            public String getRemoteAddr() {
+                return "198.51.100.1";
+            }
+        };
+
+        // Act & Assert
+        assertEquals("203.0.113.7", resolver.resolve(forwarded));
+    }
+}
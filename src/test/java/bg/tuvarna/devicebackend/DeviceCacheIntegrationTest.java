@@ -0,0 +1,131 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.DeviceCache;
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.DeviceUpdateVO;
+import bg.tuvarna.devicebackend.models.dtos.DeviceVO;
+import bg.tuvarna.devicebackend.models.dtos.PassportCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.PassportUpdateVO;
+import bg.tuvarna.devicebackend.models.dtos.RenovationCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserUpdateVO;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.services.DeviceService;
+import bg.tuvarna.devicebackend.services.PassportService;
+import bg.tuvarna.devicebackend.services.RenovationService;
+import bg.tuvarna.devicebackend.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DeviceCacheIntegrationTest {
+    private static final LocalDate PURCHASED = LocalDate.of(2024, 1, 1);
+    private static final AtomicInteger PREFIXES = new AtomicInteger();
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private PassportService passportService;
+
+    @Autowired
+    private RenovationService renovationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DeviceCache deviceCache;
+
+    @Test
+    void updateDevice_shouldInvalidateCachedDevice() {
+        // Arrange
+        String serialNumber = registeredDevice().serialNumber();
+
+        // Act
+        deviceService.updateDevice(serialNumber, new DeviceUpdateVO(PURCHASED, "updated"));
+
+        // Assert
+        assertNull(deviceCache.get(serialNumber));
+        assertEquals("updated", deviceService.getRegisteredDevice(serialNumber).comment());
+    }
+
+    @Test
+    void deleteDevice_shouldInvalidateCachedDevice() {
+        // Arrange
+        String serialNumber = registeredDevice().serialNumber();
+
+        // Act
+        deviceService.deleteDevice(serialNumber);
+
+        // Assert
+        assertNull(deviceCache.get(serialNumber));
+        assertThrows(CustomException.class, () -> deviceService.getRegisteredDevice(serialNumber));
+    }
+
+    @Test
+    void addRenovation_shouldInvalidateCachedDevice() {
+        // Arrange
+        String serialNumber = registeredDevice().serialNumber();
+
+        // Act
+        renovationService.save(new RenovationCreateVO(serialNumber, "New battery", PURCHASED.plusMonths(6)));
+
+        // Assert
+        assertNull(deviceCache.get(serialNumber));
+        assertEquals("New battery", deviceService.getRegisteredDevice(serialNumber).renovations().get(0).description());
+    }
+
+    @Test
+    void updateUser_shouldInvalidateOwnedDevices() {
+        // Arrange
+        DeviceVO device = registeredDevice();
+        Long userId = device.user().id();
+
+        // Act
+        userService.updateUser(userId, new UserUpdateVO("Renamed Owner", "1 New Street", device.user().phone(), device.user().email()));
+
+        // Assert
+        assertNull(deviceCache.get(device.serialNumber()));
+        assertEquals("Renamed Owner", deviceService.getRegisteredDevice(device.serialNumber()).user().fullName());
+    }
+
+    @Test
+    void updatePassport_shouldInvalidateCachedDevices() {
+        // Arrange
+        DeviceVO device = registeredDevice();
+
+        // Act
+        passportService.update(device.passport().id(), new PassportUpdateVO("Renamed", null, null, null, null, null));
+
+        // Assert
+        assertNull(deviceCache.get(device.serialNumber()));
+        assertEquals("Renamed", deviceService.getRegisteredDevice(device.serialNumber()).passport().name());
+    }
+
+    /**
+     * Registers a device with an owner under a passport of its own and loads it into the cache.
+     */
+    private DeviceVO registeredDevice() {
+        int n = PREFIXES.incrementAndGet();
+        String prefix = "DEVCACHE" + (char) ('A' + n);
+        Passport passport = passportService.create(new PassportCreateVO("Cached", "C-" + n, prefix, 12, 1, 100));
+        String serialNumber = prefix + "1";
+        userService.register(new UserCreateVO(
+                "Cache Owner", "Password123!", "cache" + n + "@example.com", "55599900" + n, "1 Main Street", PURCHASED, serialNumber
+        ));
+
+        DeviceVO device = deviceService.getRegisteredDevice(serialNumber);
+        assertSame(device, deviceCache.get(serialNumber));
+        assertEquals(passport.getId(), device.passport().id());
+        return device;
+    }
+}
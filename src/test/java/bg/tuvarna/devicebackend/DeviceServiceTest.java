@@ -0,0 +1,87 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.DeviceCache;
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
+import bg.tuvarna.devicebackend.models.dtos.DeviceCreateVO;
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.services.DeviceService;
+import bg.tuvarna.devicebackend.services.PassportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceServiceTest {
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    @Mock
+    private PassportService passportService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private DeviceCache deviceCache;
+
+    @InjectMocks
+    private DeviceService deviceService;
+
+    @Test
+    void registerDevice_shouldThrowInvalidSerialNumber_whenNoPassportMatches() {
+        // Arrange
+        when(passportService.findBySerialId("UNKNOWN1")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () ->
+                deviceService.registerDevice("UNKNOWN1", LocalDate.now(), new User())
+        );
+
+        assertEquals("Invalid serial number", exception.getMessage());
+        assertEquals(ErrorCode.Failed, exception.getErrorCode());
+        verify(deviceRepository, never()).save(any(Device.class));
+    }
+
+    @Test
+    void registerDevice_shouldPropagateDatabaseFailure_whenPassportLookupFails() {
+        // Arrange
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection refused");
+        when(passportService.findBySerialId("AB1")).thenThrow(failure);
+
+        // Act & Assert
+        assertSame(failure, assertThrows(DataAccessResourceFailureException.class, () ->
+                deviceService.registerDevice("AB1", LocalDate.now(), new User())
+        ));
+    }
+
+    @Test
+    void addAnonymousDevice_shouldPropagateDatabaseFailure_whenSaveFails() {
+        // Arrange
+        Passport passport = Passport.builder().id(1L).serialPrefix("AB").warrantyMonths(12).build();
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection refused");
+        when(passportService.findBySerialId("AB1")).thenReturn(Optional.of(passport));
+        when(deviceRepository.save(any(Device.class))).thenThrow(failure);
+
+        // Act & Assert
+        assertSame(failure, assertThrows(DataAccessResourceFailureException.class, () ->
+                deviceService.addAnonymousDevice(new DeviceCreateVO("AB1", LocalDate.now()))
+        ));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
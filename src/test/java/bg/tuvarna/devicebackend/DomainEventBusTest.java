@@ -0,0 +1,92 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.DomainEventBus;
+import bg.tuvarna.devicebackend.config.DomainEventSubscriber;
+import bg.tuvarna.devicebackend.models.events.DeviceRegisteredEvent;
+import bg.tuvarna.devicebackend.models.events.DomainEvent;
+import bg.tuvarna.devicebackend.models.events.UserRegisteredEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainEventBusTest {
+
+    @Test
+    void publish_shouldDeliverOnlySubscribedEventTypes() throws Exception {
+        // Arrange
+        CountDownLatch delivered = new CountDownLatch(2);
+        List<UserRegisteredEvent> received = new CopyOnWriteArrayList<>();
+        DomainEventSubscriber<UserRegisteredEvent> subscriber = new DomainEventSubscriber<>() {
+            @Override
+            public Class<UserRegisteredEvent> eventType() {
+                return UserRegisteredEvent.class;
+            }
+
+            @Override
+            public void onEvents(List<UserRegisteredEvent> events) {
+                received.addAll(events);
+                events.forEach(event -> delivered.countDown());
+            }
+        };
+
+        try (DomainEventBus bus = new DomainEventBus(List.of(subscriber), new SimpleMeterRegistry(), 100, 10)) {
+            // Act
+            bus.publish(new UserRegisteredEvent(1L));
+            bus.publish(new DeviceRegisteredEvent("ABC1", 1L, 1L));
+            bus.publish(new UserRegisteredEvent(2L));
+
+            // Assert
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(new UserRegisteredEvent(1L), new UserRegisteredEvent(2L)), received);
+        }
+    }
+
+    @Test
+    void publish_shouldDropAndCount_whenSubscriberQueueIsFull() throws Exception {
+        // Arrange
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DomainEventSubscriber<DomainEvent> subscriber = new DomainEventSubscriber<>() {
+            @Override
+            public Class<DomainEvent> eventType() {
+                return DomainEvent.class;
+            }
+
+            @Override
+            public void onEvents(List<DomainEvent> events) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public String name() {
+                return "slow";
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        try (DomainEventBus bus = new DomainEventBus(List.of(subscriber), meterRegistry, 2, 1)) {
+            bus.publish(new UserRegisteredEvent(0L));
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            // Act
+            for (long i = 1; i <= 5; i++) {
+                bus.publish(new UserRegisteredEvent(i));
+            }
+
+            // Assert
+            assertEquals(3, meterRegistry.get("events.dropped").tag("subscriber", "slow").counter().count());
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.JwtKeyRing;
+import bg.tuvarna.devicebackend.config.JwtService;
+import bg.tuvarna.devicebackend.config.TokenRevocationRegistry;
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.TokenPairVO;
+import bg.tuvarna.devicebackend.models.entities.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtServiceTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[]{
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+            17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32
+    });
+
+    private final TokenRevocationRegistry revocationRegistry = mock(TokenRevocationRegistry.class);
+    private final JwtService jwtService = newJwtService(SECRET);
+
+    @Test
+    void parseToken_shouldReturnSubject_whenTokenIsValid() {
+        // Arrange
+        String token = jwtService.generateToken(42L);
+
+        // Act
+        Claims claims = jwtService.parseToken(token);
+
+        // Assert
+        assertNotNull(claims);
+        assertEquals("42", claims.getSubject());
+        assertEquals("42", jwtService.extractId(token));
+        assertFalse(jwtService.isTokenExpired(token));
+    }
+
+    @Test
+    void parseToken_shouldReuseVerifiedClaims_whenSameTokenIsParsedAgain() {
+        // Arrange
+        String token = jwtService.generateToken(7L);
+
+        // Act
+        Claims first = jwtService.parseToken(token);
+        Claims second = jwtService.parseToken(token);
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    void parseToken_shouldReturnReadOnlyClaims_whenClaimsAreCached() {
+        // Arrange
+        String token = jwtService.generateToken(7L);
+        Claims claims = jwtService.parseToken(token);
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class, () -> claims.put("sub", "8"));
+        assertThrows(UnsupportedOperationException.class, () -> claims.setSubject("8"));
+        claims.getExpiration().setTime(0);
+        assertEquals("7", jwtService.parseToken(token).getSubject());
+        assertTrue(jwtService.parseToken(token).getExpiration().after(new Date()));
+    }
+
+    @Test
+    void parseToken_shouldRejectToken_whenSignatureIsTampered() {
+        // Arrange
+        String token = jwtService.generateToken(1L);
+        // The last character only partly carries signature bits, so flip one in the middle instead.
+        int index = token.lastIndexOf('.') + (token.length() - token.lastIndexOf('.')) / 2;
+        char flipped = token.charAt(index) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, index) + flipped + token.substring(index + 1);
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    @Test
+    void isTokenValid_shouldReturnFalse_whenSubjectBelongsToAnotherUser() {
+        // Arrange
+        String token = jwtService.generateToken(1L);
+        User other = new User();
+        other.setId(2L);
+
+        // Act & Assert
+        assertFalse(jwtService.isTokenValid(token, other));
+    }
+
+    @Test
+    void parseToken_shouldAcceptToken_whenIssuedByAnotherNodeWithSameSecret() {
+        // Arrange
+        JwtService otherNode = newJwtService(SECRET);
+        String token = otherNode.generateToken(5L);
+
+        // Act
+        Claims claims = jwtService.parseToken(token);
+
+        // Assert
+        assertEquals("5", claims.getSubject());
+    }
+
+    @Test
+    void parseToken_shouldRejectToken_whenIssuedWithDifferentSecret() {
+        // Arrange
+        JwtService otherCluster = newJwtService(null);
+        String token = otherCluster.generateToken(5L);
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    void refresh_shouldIssueNewTokenPair_whenRefreshTokenIsValid() {
+        // Arrange
+        String refreshToken = jwtService.generateRefreshToken(3L);
+        when(revocationRegistry.markRefreshTokenUsed(anyString(), eq(3L), any(Date.class))).thenReturn(true);
+
+        // Act
+        TokenPairVO pair = jwtService.refresh(refreshToken);
+
+        // Assert
+        Claims access = jwtService.parseToken(pair.token());
+        assertEquals("3", access.getSubject());
+        assertTrue(jwtService.isAccessToken(access));
+        assertFalse(jwtService.isAccessToken(jwtService.parseToken(pair.refreshToken())));
+    }
+
+    @Test
+    void refresh_shouldThrowException_whenAccessTokenIsUsed() {
+        // Arrange
+        String accessToken = jwtService.generateToken(3L);
+
+        // Act & Assert
+        assertThrows(CustomException.class, () -> jwtService.refresh(accessToken));
+    }
+
+    @Test
+    void refresh_shouldThrowException_whenTokensWereRevoked() {
+        // Arrange
+        String refreshToken = jwtService.generateRefreshToken(3L);
+        when(revocationRegistry.isRevoked(anyLong(), any(Date.class))).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(CustomException.class, () -> jwtService.refresh(refreshToken));
+    }
+
+    @Test
+    void refresh_shouldRevokeAllTokens_whenRefreshTokenIsReused() {
+        // Arrange
+        String refreshToken = jwtService.generateRefreshToken(3L);
+        when(revocationRegistry.markRefreshTokenUsed(anyString(), eq(3L), any(Date.class))).thenReturn(true, false);
+        jwtService.refresh(refreshToken);
+
+        // Act & Assert
+        assertThrows(CustomException.class, () -> jwtService.refresh(refreshToken));
+        verify(revocationRegistry).revokeAll(3L);
+    }
+
+    @Test
+    void generateRefreshToken_shouldIssueDistinctTokenIds() {
+        // Act
+        Claims first = jwtService.parseToken(jwtService.generateRefreshToken(3L));
+        Claims second = jwtService.parseToken(jwtService.generateRefreshToken(3L));
+
+        // Assert
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    private JwtService newJwtService(String secret) {
+        return new JwtService(new JwtKeyRing(secret, null, "changeit", 24, 360), revocationRegistry, new SimpleMeterRegistry(), 100, 15, 14);
+    }
+}
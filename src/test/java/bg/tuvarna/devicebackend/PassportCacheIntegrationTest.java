@@ -0,0 +1,70 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.PassportCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.PassportUpdateVO;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.services.PassportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PassportCacheIntegrationTest {
+
+    @Autowired
+    private PassportService passportService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void findPassportBySerialId_shouldServeRepeatedLookupsFromCache() {
+        // Arrange
+        passportService.create(new PassportCreateVO("Cached", "C-1", "CACHED", 24, 1, 100));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        passportService.findPassportBySerialId("CACHED10");
+        Passport passport = passportService.findPassportBySerialId("CACHED10");
+
+        // Assert
+        assertEquals("Cached", passport.getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void update_shouldInvalidateCachedPassport() {
+        // Arrange
+        Passport passport = passportService.create(new PassportCreateVO("Stale", "S-1", "STALE", 12, 1, 100));
+        passportService.findPassportBySerialId("STALE5");
+
+        // Act
+        passportService.update(passport.getId(), new PassportUpdateVO(null, null, null, 36, null, null));
+
+        // Assert
+        assertEquals(36, passportService.findPassportBySerialId("STALE5").getWarrantyMonths());
+    }
+
+    @Test
+    void delete_shouldInvalidateCachedLookups() {
+        // Arrange
+        Passport passport = passportService.create(new PassportCreateVO("Gone", "G-1", "GONE", 12, 1, 100));
+        passportService.findPassportBySerialId("GONE5");
+
+        // Act
+        passportService.delete(passport.getId());
+
+        // Assert
+        assertThrows(CustomException.class, () -> passportService.findPassportBySerialId("GONE5"));
+    }
+}
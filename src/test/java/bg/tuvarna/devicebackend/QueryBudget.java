@@ -0,0 +1,51 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.RequestQueryStatistics;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MockMvc matchers over the per-request counts recorded by {@code RequestQueryMetricsFilter}.
+ * The filter is only registered in a full context ({@code @SpringBootTest} with
+ * {@code @AutoConfigureMockMvc}); slices such as {@code @WebMvcTest} have nothing to measure.
+ */
+public final class QueryBudget {
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher statementsAtMost(int max) {
+        return result -> {
+            RequestQueryStatistics.Counts counts = countsOf(result);
+            assertTrue(counts.statements() <= max,
+                    "Expected at most " + max + " statements but ran " + counts.statements()
+                            + ", most repeated: " + counts.mostRepeated());
+        };
+    }
+
+    public static ResultMatcher entityLoadsAtMost(int max) {
+        return result -> {
+            RequestQueryStatistics.Counts counts = countsOf(result);
+            assertTrue(counts.entityLoads() <= max,
+                    "Expected at most " + max + " entity loads but had " + counts.entityLoads());
+        };
+    }
+
+    /**
+     * Fails when any single statement ran more than {@code max} times, i.e. an N+1.
+     */
+    public static ResultMatcher noStatementRepeatedMoreThan(int max) {
+        return result -> {
+            RequestQueryStatistics.RepeatedStatement repeated = countsOf(result).mostRepeated();
+            assertTrue(repeated.executions() <= max,
+                    "Statement ran " + repeated.executions() + " times: " + repeated.sql());
+        };
+    }
+
+    public static RequestQueryStatistics.Counts countsOf(MvcResult result) {
+        Object counts = result.getRequest().getAttribute(RequestQueryStatistics.COUNTS_ATTRIBUTE);
+        assertNotNull(counts, "No query statistics recorded; is RequestQueryMetricsFilter registered?");
+        return (RequestQueryStatistics.Counts) counts;
+    }
+}
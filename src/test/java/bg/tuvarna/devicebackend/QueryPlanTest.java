@@ -0,0 +1,87 @@
+package bg.tuvarna.devicebackend;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the lookups on the hot paths are served by an index from the migrations.
+ * On PostgreSQL sequential scans are disabled for the session so the planner picks an index
+ * whenever one is usable, regardless of table size.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean postgres;
+
+    @BeforeEach
+    void setUp() {
+        postgres = jdbcTemplate.execute((Connection connection) ->
+                connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("PostgreSQL")
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "select * from public.users where email = 'user@example.com'",
+            "select * from public.users where phone = '5550000000'",
+            "select * from public.users where email_normalized = 'user@example.com'",
+            "select * from public.users where phone_normalized = '+359888123456'",
+            "select * from public.users where full_name_normalized like 'john%'",
+            "select * from public.devices where serial_number_normalized like 'ab1%'",
+            "select * from public.passports where name_normalized like 'phone%'",
+            "select * from public.passports where model_normalized like 'x1%'",
+            "select * from public.users where tokens_valid_after > timestamp '2024-01-01 00:00:00'",
+            "select * from public.passports where serial_prefix in ('A', 'AB', 'ABC')",
+            "select * from public.passports where serial_prefix = 'AB' and from_serial_number between 1 and 10",
+            "select * from public.devices where user_id = 1",
+            "select * from public.devices where passport_id = 1",
+            "select * from public.renovations where device_serial_number = 'AB1'"
+    })
+    void hotLookup_shouldUseIndex(String query) {
+        // Act
+        String plan = explain(query);
+
+        // Assert
+        if (postgres) {
+            assertFalse(plan.contains("seq scan"), plan);
+        } else {
+            assertFalse(plan.contains("tablescan"), plan);
+        }
+    }
+
+    private String explain(String query) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (var statement = connection.createStatement()) {
+                if (postgres) {
+                    statement.execute("set enable_seqscan = off");
+                }
+                List<String> lines = new ArrayList<>();
+                try (var resultSet = statement.executeQuery("explain " + query)) {
+                    while (resultSet.next()) {
+                        lines.add(resultSet.getString(1));
+                    }
+                }
+                if (postgres) {
+                    statement.execute("reset enable_seqscan");
+                }
+                return String.join("\n", lines).toLowerCase(Locale.ROOT);
+            }
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.ClientAddressResolver;
+import bg.tuvarna.devicebackend.config.RateLimitFilter;
+import bg.tuvarna.devicebackend.utils.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+    @Test
+    void bindTo_shouldPublishRequestTotalsAsCounters() throws Exception {
+        // Arrange
+        RateLimitFilter filter = new RateLimitFilter(
+                List.of(new RateLimitFilter.RouteGroup("login", AnyRequestMatcher.INSTANCE, new RateLimiter(1, 0.001, 100))),
+                new ClientAddressResolver(List.of()),
+                new ObjectMapper().findAndRegisterModules()
+        );
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (request, response) -> {
+        });
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (request, response) -> {
+        });
+
+        // Assert
+        FunctionCounter allowed = registry.get("rate_limit.requests.allowed").tag("group", "login").functionCounter();
+        FunctionCounter rejected = registry.get("rate_limit.requests.rejected").tag("group", "login").functionCounter();
+        Gauge buckets = registry.get("rate_limit.buckets").tag("group", "login").gauge();
+        assertEquals(1.0, allowed.count());
+        assertEquals(1.0, rejected.count());
+        assertEquals(1.0, buckets.value());
+    }
+}
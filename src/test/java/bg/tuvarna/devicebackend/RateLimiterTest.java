@@ -0,0 +1,78 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.utils.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_shouldRejectRequest_whenBurstCapacityIsExhausted() {
+        // Arrange
+        RateLimiter limiter = new RateLimiter(3, 1, 100);
+        long now = 10 * SECOND;
+
+        // Act
+        long first = limiter.tryAcquire("10.0.0.1", now);
+        long second = limiter.tryAcquire("10.0.0.1", now);
+        long third = limiter.tryAcquire("10.0.0.1", now);
+        long fourth = limiter.tryAcquire("10.0.0.1", now);
+
+        // Assert
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertEquals(0, third);
+        assertEquals(SECOND, fourth);
+        assertEquals(3, limiter.allowedCount());
+        assertEquals(1, limiter.rejectedCount());
+    }
+
+    @Test
+    void tryAcquire_shouldAllowRequest_whenTokenIsRefilled() {
+        // Arrange
+        RateLimiter limiter = new RateLimiter(1, 1, 100);
+        long now = 10 * SECOND;
+        limiter.tryAcquire("10.0.0.1", now);
+
+        // Act & Assert
+        assertTrue(limiter.tryAcquire("10.0.0.1", now + SECOND / 2) > 0);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", now + SECOND));
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", now + SECOND));
+    }
+
+    @Test
+    void tryAcquire_shouldKeepKeyMapBounded_whenManyClientsArrive() {
+        // Arrange
+        RateLimiter limiter = new RateLimiter(5, 1, 100);
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("client-" + i, 10 * SECOND);
+        }
+
+        // Assert
+        assertTrue(limiter.size() <= 100);
+    }
+
+    @Test
+    void tryAcquire_shouldKeepDrainedBucket_whenNewClientsFillKeyMap() {
+        // Arrange
+        RateLimiter limiter = new RateLimiter(5, 1, 100);
+        long now = 10 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("heavy", now);
+        }
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("client-" + i, now);
+        }
+
+        // Assert
+        assertTrue(limiter.tryAcquire("heavy", now) > 0);
+    }
+}
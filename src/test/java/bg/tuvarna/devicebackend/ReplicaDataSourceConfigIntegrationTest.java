@@ -0,0 +1,85 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.BoundedDataSource;
+import bg.tuvarna.devicebackend.config.BoundedDataSourcePostProcessor;
+import bg.tuvarna.devicebackend.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.HttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs on a database of its own, which also serves as the one replica.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicas;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "db.replica-urls=jdbc:h2:mem:replicas;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ReplicaDataSourceConfigIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private BoundedDataSourcePostProcessor boundedDataSources;
+
+    @Autowired
+    @Qualifier("replicasHealthIndicator")
+    private HealthIndicator replicasHealthIndicator;
+
+    @Autowired
+    private StatusAggregator statusAggregator;
+
+    @Autowired
+    private HttpCodeStatusMapper httpCodeStatusMapper;
+
+    @Test
+    void dataSource_shouldRouteThroughReplicaBean_withEveryPoolBounded() {
+        // Assert
+        LazyConnectionDataSourceProxy proxy = assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+        assertSame(replicaRoutingDataSource, proxy.getTargetDataSource());
+        assertEquals(2, boundedDataSources.getDataSources().size());
+        assertTrue(boundedDataSources.getDataSources().stream().noneMatch(bounded ->
+                bounded.getTargetDataSource() instanceof ReplicaRoutingDataSource));
+        assertFalse(dataSource instanceof BoundedDataSource);
+    }
+
+    @Test
+    void replicasHealthIndicator_shouldReportUp_whenReplicaIsHealthy() {
+        // Act
+        Status status = replicasHealthIndicator.health().getStatus();
+
+        // Assert
+        assertEquals(Status.UP, status);
+    }
+
+    @Test
+    void degradedStatus_shouldRankBelowDown_andServe200() {
+        // Arrange
+        Status degraded = new Status("DEGRADED");
+
+        // Act
+        Status withUp = statusAggregator.getAggregateStatus(Set.of(Status.UP, degraded));
+        Status withDown = statusAggregator.getAggregateStatus(Set.of(Status.DOWN, degraded));
+
+        // Assert
+        assertEquals(degraded, withUp);
+        assertEquals(Status.DOWN, withDown);
+        assertEquals(200, httpCodeStatusMapper.getStatusCode(degraded));
+    }
+}
@@ -0,0 +1,145 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.BoundedDataSource;
+import bg.tuvarna.devicebackend.config.Bulkhead;
+import bg.tuvarna.devicebackend.config.ReplicaRoutingDataSource;
+import bg.tuvarna.devicebackend.models.dtos.UserPrincipal;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+    // DatabaseMetaData.getURL() reports the URL without its settings, so the tests compare against these.
+    private static final String PRIMARY = "jdbc:h2:mem:routing-primary";
+    private static final String REPLICA = "jdbc:h2:mem:routing-replica";
+    private static final String PRIMARY_URL = PRIMARY + ";DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = REPLICA + ";DB_CLOSE_DELAY=-1";
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getConnection_shouldUseReplica_whenTransactionIsReadOnly() throws SQLException {
+        // Arrange
+        ReplicaRoutingDataSource dataSource = routing(REPLICA_URL);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        assertEquals(REPLICA, urlOf(dataSource));
+    }
+
+    @Test
+    void getConnection_shouldUsePrimary_whenTransactionWrites() throws SQLException {
+        // Arrange
+        ReplicaRoutingDataSource dataSource = routing(REPLICA_URL);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // Act & Assert
+        assertEquals(PRIMARY, urlOf(dataSource));
+    }
+
+    @Test
+    void getConnection_shouldUsePrimary_whenReadingFromPrimaryIsRequested() throws SQLException {
+        // Arrange
+        ReplicaRoutingDataSource dataSource = routing(REPLICA_URL);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        String url = ReplicaRoutingDataSource.readFromPrimary(() -> {
+            try {
+                return urlOf(dataSource);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Assert
+        assertEquals(PRIMARY, url);
+        assertEquals(REPLICA, urlOf(dataSource));
+    }
+
+    @Test
+    void getConnection_shouldFallBackToPrimary_whenReplicaIsDown() throws SQLException {
+        // Arrange
+        ReplicaRoutingDataSource dataSource = routing("jdbc:h2:mem:routing-missing;IFEXISTS=TRUE");
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        assertEquals(PRIMARY, urlOf(dataSource));
+        assertFalse(dataSource.replicaStatus().get("replica-0"));
+    }
+
+    @Test
+    void getConnection_shouldReadFromPrimaryWithoutMarkingReplicaDown_whenReplicaIsBusy() throws SQLException {
+        // Arrange
+        BoundedDataSource replica = new BoundedDataSource(
+                new DriverManagerDataSource(REPLICA_URL), new Bulkhead.Limits(1, 10), Map.of()
+        );
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+                new DriverManagerDataSource(PRIMARY_URL),
+                List.of(new ReplicaRoutingDataSource.Replica("replica-0", replica)),
+                5000
+        );
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        try (Connection held = replica.getConnection()) {
+            // Act
+            String url = urlOf(dataSource);
+
+            // Assert
+            assertEquals(PRIMARY, url);
+            assertTrue(dataSource.replicaStatus().get("replica-0"));
+        }
+    }
+
+    @Test
+    void getConnection_shouldReadFromPrimary_whenUserWroteRecently() throws SQLException {
+        // Arrange
+        ReplicaRoutingDataSource dataSource = routing(REPLICA_URL);
+        UserPrincipal principal = new UserPrincipal(7L, "user@example.com", UserRole.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities())
+        );
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        urlOf(dataSource);
+
+        // Act
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Assert
+        assertEquals(PRIMARY, urlOf(dataSource));
+    }
+
+    private static ReplicaRoutingDataSource routing(String replicaUrl) {
+        return new ReplicaRoutingDataSource(
+                new DriverManagerDataSource(PRIMARY_URL),
+                List.of(new ReplicaRoutingDataSource.Replica("replica-0", new DriverManagerDataSource(replicaUrl))),
+                5000
+        );
+    }
+
+    private static String urlOf(ReplicaRoutingDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+}
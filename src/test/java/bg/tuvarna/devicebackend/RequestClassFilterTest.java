@@ -0,0 +1,71 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.config.DataSourceConfig;
+import bg.tuvarna.devicebackend.config.RequestClassFilter;
+import bg.tuvarna.devicebackend.models.enums.RequestClass;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestClassFilterTest {
+    private final DataSourceConfig config = new DataSourceConfig();
+    private final RequestClassFilter filter = config.requestClassFilter();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void classify_shouldUseRoute_notCaller() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin", null, List.of(new SimpleGrantedAuthority(UserRole.ADMIN.toString()))
+        ));
+
+        // Act
+        RequestClass exists = filter.classify(request("GET", "/api/v1/devices/exists/SN1"));
+        RequestClass passport = filter.classify(request("GET", "/api/v1/passports/getBySerialId/SN1"));
+
+        // Assert
+        assertEquals(RequestClass.PUBLIC, exists);
+        assertEquals(RequestClass.PUBLIC, passport);
+    }
+
+    @Test
+    void classify_shouldSeparateUserAndAdminRoutes() {
+        // Act & Assert
+        assertEquals(RequestClass.PUBLIC, filter.classify(request("POST", "/api/v1/users/login")));
+        assertEquals(RequestClass.USER, filter.classify(request("GET", "/api/v1/users/getUser")));
+        assertEquals(RequestClass.USER, filter.classify(request("PUT", "/api/v1/users/5/changePassword")));
+        assertEquals(RequestClass.USER, filter.classify(request("POST", "/api/v1/devices")));
+        assertEquals(RequestClass.ADMIN, filter.classify(request("GET", "/api/v1/devices")));
+        assertEquals(RequestClass.ADMIN, filter.classify(request("GET", "/api/v1/users")));
+        assertEquals(RequestClass.ADMIN, filter.classify(request("GET", "/api/v1/snapshots")));
+        assertEquals(RequestClass.USER, filter.classify(request("GET", "/unmapped")));
+    }
+
+    @Test
+    void requestClassFilterRegistration_shouldRunBeforeSecurityChain() {
+        // Act
+        int order = config.requestClassFilterRegistration(filter).getOrder();
+
+        // Assert
+        assertTrue(order < SecurityProperties.DEFAULT_FILTER_ORDER);
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+}
@@ -0,0 +1,32 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.utils.SearchNormalizer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchNormalizerTest {
+
+    @Test
+    void text_shouldTrimAndLowercase() {
+        assertEquals("john doe", SearchNormalizer.text("  John DOE "));
+        assertNull(SearchNormalizer.text("   "));
+        assertNull(SearchNormalizer.text(null));
+    }
+
+    @Test
+    void phone_shouldProduceE164_forCommonFormats() {
+        assertEquals("+359888123456", SearchNormalizer.phone("0888 123 456"));
+        assertEquals("+359888123456", SearchNormalizer.phone("+359 (888) 123-456"));
+        assertEquals("+359888123456", SearchNormalizer.phone("00359888123456"));
+        assertEquals("+1234567890", SearchNormalizer.phone("1234567890"));
+    }
+
+    @Test
+    void phone_shouldReturnNull_whenValueIsNotPhoneNumber() {
+        assertNull(SearchNormalizer.phone("user@example.com"));
+        assertNull(SearchNormalizer.phone("admin"));
+        assertNull(SearchNormalizer.phone("+"));
+        assertNull(SearchNormalizer.phone("12+34"));
+    }
+}
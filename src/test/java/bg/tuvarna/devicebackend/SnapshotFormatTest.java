@@ -0,0 +1,97 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.utils.SnapshotColumn;
+import bg.tuvarna.devicebackend.utils.SnapshotReader;
+import bg.tuvarna.devicebackend.utils.SnapshotWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFormatTest {
+    private static final List<SnapshotColumn> COLUMNS = List.of(
+            new SnapshotColumn("id", SnapshotColumn.Type.BIGINT),
+            new SnapshotColumn("months", SnapshotColumn.Type.INTEGER),
+            new SnapshotColumn("name", SnapshotColumn.Type.TEXT),
+            new SnapshotColumn("purchase_date", SnapshotColumn.Type.DATE),
+            new SnapshotColumn("tokens_valid_after", SnapshotColumn.Type.TIMESTAMP)
+    );
+
+    @Test
+    void snapshot_shouldRoundTripRowsAcrossBlocks() throws IOException {
+        // Arrange
+        List<Object[]> written = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            written.add(new Object[]{
+                    (long) i * 1_000_000_007L - 3,
+                    -i,
+                    i % 2 == 0 ? "Washer " + i : null,
+                    LocalDate.of(2024, 2, 29).plusDays(i),
+                    i % 3 == 0 ? null : Instant.ofEpochSecond(1_700_000_000L + i, 123_456_789)
+            });
+        }
+
+        // Act
+        byte[] snapshot = write(written);
+        List<Object[]> read = read(snapshot);
+
+        // Assert
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertArrayEquals(written.get(i), read.get(i), Arrays.toString(read.get(i)));
+        }
+    }
+
+    @Test
+    void snapshot_shouldBeRejected_whenBlockIsDamaged() throws IOException {
+        // Arrange
+        byte[] snapshot = write(List.<Object[]>of(new Object[]{1L, 24, "Washer", LocalDate.of(2024, 1, 1), null}));
+        snapshot[snapshot.length - 20] ^= 0x01;
+
+        // Act & Assert
+        IOException exception = assertThrows(IOException.class, () -> read(snapshot));
+        assertTrue(exception.getMessage().startsWith("Corrupted snapshot"));
+    }
+
+    @Test
+    void snapshot_shouldBeRejected_whenTruncated() throws IOException {
+        // Arrange
+        byte[] snapshot = write(List.<Object[]>of(new Object[]{1L, 24, "Washer", LocalDate.of(2024, 1, 1), null}));
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> read(Arrays.copyOf(snapshot, snapshot.length - 5)));
+    }
+
+    private static byte[] write(List<Object[]> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter writer = new SnapshotWriter(out, 3);
+        writer.beginSection("devices", COLUMNS);
+        for (Object[] row : rows) {
+            writer.writeRow(row);
+        }
+        assertEquals(rows.size(), writer.endSection());
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static List<Object[]> read(byte[] snapshot) throws IOException {
+        SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(snapshot));
+        SnapshotReader.Section section = reader.nextSection();
+        assertEquals(COLUMNS, section.columns());
+        List<Object[]> rows = new ArrayList<>();
+        SnapshotReader.Block block;
+        while ((block = reader.nextBlock()) != null) {
+            rows.addAll(block.rows());
+        }
+        assertNull(reader.nextSection());
+        return rows;
+    }
+}
@@ -0,0 +1,132 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.PassportCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.RenovationCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.SnapshotVO;
+import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.services.PassportService;
+import bg.tuvarna.devicebackend.services.RenovationService;
+import bg.tuvarna.devicebackend.services.SnapshotService;
+import bg.tuvarna.devicebackend.services.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs on a database of its own: a restore needs the tables empty apart from the bootstrap admin.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "snapshot.rows-per-block=2"
+})
+@ActiveProfiles("test")
+class SnapshotRestoreIntegrationTest {
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    private PassportService passportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RenovationService renovationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private byte[] snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        resetToFreshInstall();
+        passportService.create(new PassportCreateVO("Washer", "W-1", "SNAP", 24, 1, 100));
+        for (int i = 1; i <= 3; i++) {
+            userService.register(new UserCreateVO(
+                    "Snapshot User " + i, "Password123!", "snapshot" + i + "@example.com", "555777000" + i,
+                    i + " Main Street", LocalDate.of(2024, 1, i), "SNAP" + i
+            ));
+        }
+        renovationService.save(new RenovationCreateVO("SNAP1", "New drum", LocalDate.of(2024, 6, 1)));
+        snapshot = export();
+        resetToFreshInstall();
+    }
+
+    @Test
+    void restore_shouldReproduceExportedData() throws IOException {
+        // Act
+        SnapshotVO result = snapshotService.restore(new ByteArrayInputStream(snapshot));
+
+        // Assert
+        assertEquals(Map.of("users", 4L, "passports", 1L, "devices", 3L, "renovations", 1L), result.rows());
+        assertArrayEquals(snapshot, export());
+        assertEquals("Snapshot User 2", userService.getUserByUsername("snapshot2@example.com").getFullName());
+    }
+
+    @Test
+    void restore_shouldKeepBootstrapAdmin_whenSnapshotIsTruncated() {
+        // Arrange
+        byte[] truncated = Arrays.copyOf(snapshot, snapshot.length - 10);
+
+        // Act
+        assertThrows(CustomException.class, () -> snapshotService.restore(new ByteArrayInputStream(truncated)));
+
+        // Assert
+        assertEquals(1, count("public.users"));
+        assertEquals("ADMIN", jdbcTemplate.queryForObject("select role from public.users", String.class));
+        assertEquals(0, count("public.passports"));
+        assertEquals(0, count("public.devices"));
+        assertEquals(0, count("public.renovations"));
+    }
+
+    @Test
+    void restore_shouldRefuse_whenDatabaseIsInUse() throws IOException {
+        // Arrange
+        passportService.create(new PassportCreateVO("Dryer", "D-1", "INUSE", 24, 1, 100));
+
+        // Act & Assert
+        assertThrows(CustomException.class, () -> snapshotService.restore(new ByteArrayInputStream(snapshot)));
+        assertEquals(1, count("public.users"));
+        assertEquals(1, count("public.passports"));
+    }
+
+    private byte[] export() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshotService.export(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Leaves only the admin that InitialDataSetup creates, as on a new installation.
+     */
+    private void resetToFreshInstall() {
+        jdbcTemplate.update("delete from public.renovations");
+        jdbcTemplate.update("delete from public.devices");
+        jdbcTemplate.update("delete from public.passports");
+        jdbcTemplate.update("delete from public.users where role <> 'ADMIN'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+}
@@ -4,6 +4,8 @@ import bg.tuvarna.devicebackend.controllers.UserController;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.ChangePasswordVO;
+import bg.tuvarna.devicebackend.models.dtos.RefreshTokenVO;
+import bg.tuvarna.devicebackend.models.dtos.TokenPairVO;
 import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
 import bg.tuvarna.devicebackend.models.dtos.UserListing;
 import bg.tuvarna.devicebackend.models.dtos.UserUpdateVO;
@@ -52,6 +54,34 @@ class UserApiTests {
     @MockBean
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Test
+    void refreshToken_shouldReturnNewTokenPair_whenRefreshTokenIsValid() throws Exception {
+        // Arrange
+        when(jwtService.refresh("refresh-token")).thenReturn(new TokenPairVO("access", "refresh"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/users/refresh")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenVO("refresh-token"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("access"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh"));
+    }
+
+    @Test
+    void refreshToken_shouldReturnBadRequest_whenRefreshTokenIsInvalid() throws Exception {
+        // Arrange
+        when(jwtService.refresh("stale")).thenThrow(new CustomException("Invalid refresh token", ErrorCode.WrongCredentials));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/users/refresh")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenVO("stale"))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void registration_shouldReturnOk_whenValidDataProvided() throws Exception {
         // Arrange
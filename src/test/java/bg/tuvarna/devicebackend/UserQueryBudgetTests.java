@@ -0,0 +1,144 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.models.entities.Device;
+import bg.tuvarna.devicebackend.models.entities.Passport;
+import bg.tuvarna.devicebackend.models.entities.Renovation;
+import bg.tuvarna.devicebackend.models.entities.User;
+import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.repositories.DeviceRepository;
+import bg.tuvarna.devicebackend.repositories.PassportRepository;
+import bg.tuvarna.devicebackend.repositories.RenovationRepository;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static bg.tuvarna.devicebackend.QueryBudget.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Full-stack counterpart of {@link UserApiTests}, which mocks the service layer and so cannot
+ * see queries. Budgets here must not depend on how many rows a page holds. The device listing
+ * is covered here too, against the same data set.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserQueryBudgetTests {
+    private static final int USERS = 12;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PassportRepository passportRepository;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private RenovationRepository renovationRepository;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepository.existsByEmailNormalized("budget0@example.com")) {
+            return;
+        }
+
+        Passport passport = passportRepository.save(Passport.builder()
+                .name("Budget")
+                .model("B-1")
+                .serialPrefix("BUDGET")
+                .fromSerialNumber(1)
+                .toSerialNumber(1000)
+                .warrantyMonths(12)
+                .build());
+
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setFullName("Budget User " + i);
+            user.setEmail("budget" + i + "@example.com");
+            user.setPhone("0700000" + String.format("%03d", i));
+            user.setPassword("hash");
+            user.setRole(UserRole.USER);
+            user = userRepository.save(user);
+
+            for (int d = 0; d < 2; d++) {
+                Device device = new Device();
+                device.setSerialNumber("BUDGET" + (i * 2 + d + 1));
+                device.setPurchaseDate(LocalDate.of(2024, 1, 1));
+                device.setWarrantyExpirationDate(LocalDate.of(2026, 1, 1));
+                device.setPassport(passport);
+                device.setUser(user);
+                device = deviceRepository.save(device);
+
+                Renovation renovation = new Renovation();
+                renovation.setDescription("Budget renovation");
+                renovation.setRenovationDate(LocalDate.of(2024, 6, 1));
+                renovation.setDevice(device);
+                renovationRepository.save(renovation);
+            }
+        }
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void getUsers_shouldStayWithinQueryBudget() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/users").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(3))
+                .andExpect(entityLoadsAtMost(0))
+                .andExpect(noStatementRepeatedMoreThan(1));
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void searchUsers_shouldStayWithinQueryBudget() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/users").param("searchBy", "budget").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(3))
+                .andExpect(entityLoadsAtMost(0))
+                .andExpect(noStatementRepeatedMoreThan(1));
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void getDevices_shouldStayWithinQueryBudget() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/devices").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(4))
+                .andExpect(noStatementRepeatedMoreThan(1));
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void searchDevices_shouldStayWithinQueryBudget() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/devices").param("searchBy", "budget").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(4))
+                .andExpect(noStatementRepeatedMoreThan(1));
+    }
+
+    @Test
+    void getPassportBySerialId_shouldRunAtMostOneStatement() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/passports/getBySerialId/BUDGET7"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+    }
+}
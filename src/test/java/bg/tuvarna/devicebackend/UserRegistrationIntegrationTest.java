@@ -0,0 +1,144 @@
+package bg.tuvarna.devicebackend;
+
+import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
+import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserListing;
+import bg.tuvarna.devicebackend.repositories.UserRepository;
+import bg.tuvarna.devicebackend.services.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class UserRegistrationIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void register_shouldIssueSingleStatement_whenNoDeviceProvided() {
+        // Arrange
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        userService.register(newUser("single@example.com", "5550000001", null));
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertNotNull(userRepository.getByEmail("single@example.com"));
+    }
+
+    @Test
+    void register_shouldPersistExactlyOneUser_whenSameEmailRegisteredConcurrently() throws Exception {
+        // Arrange
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String phone = "555100000" + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    userService.register(newUser("race@example.com", phone, null));
+                    return "registered";
+                } catch (CustomException e) {
+                    return e.getMessage();
+                }
+            }));
+        }
+
+        // Act
+        start.countDown();
+        List<String> outcomes = new ArrayList<>();
+        for (Future<String> result : results) {
+            outcomes.add(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, outcomes.stream().filter("registered"::equals).count());
+        assertEquals(threads - 1, outcomes.stream().filter("Email already taken"::equals).count());
+        assertNotNull(userRepository.getByEmail("race@example.com"));
+    }
+
+    @Test
+    void register_shouldRejectEmail_whenItDiffersOnlyInCase() {
+        // Arrange
+        userService.register(newUser("case@example.com", "5550000003", null));
+
+        // Act
+        CustomException exception = assertThrows(CustomException.class, () ->
+                userService.register(newUser("CASE@example.com", "5550000004", null))
+        );
+
+        // Assert
+        assertEquals("Email already taken", exception.getMessage());
+        assertEquals(
+                userRepository.getByEmail("case@example.com").getId(),
+                userService.getCredentialsByUsername("Case@Example.com").id()
+        );
+    }
+
+    @Test
+    void getUsers_shouldMatchAddress() {
+        // Arrange
+        UserCreateVO user = new UserCreateVO(
+                "Address Match", "Password123!", "address@example.com", "5550000005", "7 Lighthouse Lane", LocalDate.now(), null
+        );
+        userService.register(user);
+
+        // Act
+        List<String> emails = userService.getUsers("lighthouse", 1, 10).getItems().stream()
+                .map(UserListing::email)
+                .toList();
+
+        // Assert
+        assertEquals(List.of("address@example.com"), emails);
+    }
+
+    @Test
+    void register_shouldNotLeaveOrphanedUser_whenDeviceRegistrationFails() {
+        // Act & Assert
+        assertThrows(CustomException.class, () ->
+                userService.register(newUser("orphan@example.com", "5550000002", "UNKNOWN-SERIAL"))
+        );
+
+        assertNull(userRepository.getByEmail("orphan@example.com"));
+    }
+
+    private static UserCreateVO newUser(String email, String phone, String deviceSerialNumber) {
+        return new UserCreateVO(
+                "John Doe",
+                "Password123!",
+                email,
+                phone,
+                "123 Main Street",
+                LocalDate.now(),
+                deviceSerialNumber
+        );
+    }
+}
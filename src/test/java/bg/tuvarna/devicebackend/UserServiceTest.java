@@ -1,28 +1,38 @@
 package bg.tuvarna.devicebackend;
 
+import bg.tuvarna.devicebackend.config.TokenRevocationRegistry;
+import bg.tuvarna.devicebackend.config.UserPrincipalCache;
 import bg.tuvarna.devicebackend.controllers.exceptions.CustomException;
 import bg.tuvarna.devicebackend.controllers.exceptions.ErrorCode;
 import bg.tuvarna.devicebackend.models.dtos.ChangePasswordVO;
+import bg.tuvarna.devicebackend.models.dtos.DeviceSummaryVO;
 import bg.tuvarna.devicebackend.models.dtos.UserCreateVO;
+import bg.tuvarna.devicebackend.models.dtos.UserCredentials;
+import bg.tuvarna.devicebackend.models.dtos.UserListing;
 import bg.tuvarna.devicebackend.models.dtos.UserUpdateVO;
 import bg.tuvarna.devicebackend.models.entities.Device;
 import bg.tuvarna.devicebackend.models.entities.User;
 import bg.tuvarna.devicebackend.models.enums.UserRole;
+import bg.tuvarna.devicebackend.models.events.UserRegisteredEvent;
 import bg.tuvarna.devicebackend.repositories.UserRepository;
 import bg.tuvarna.devicebackend.services.DeviceService;
 import bg.tuvarna.devicebackend.services.UserService;
 import bg.tuvarna.devicebackend.utils.CustomPage;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -44,6 +54,15 @@ class UserServiceTest {
     @Mock
     private DeviceService deviceService;
 
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserService userService;
 
@@ -64,8 +83,6 @@ class UserServiceTest {
         savedUser.setId(1L);
         savedUser.setPassword("encodedPassword");
 
-        when(userRepository.getByEmail(anyString())).thenReturn(null);
-        when(userRepository.getByPhone(anyString())).thenReturn(null);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.saveAndFlush(any(User.class))).thenReturn(savedUser);
         doNothing().when(deviceService).alreadyExist(anyString());
@@ -78,6 +95,7 @@ class UserServiceTest {
         // Assert
         verify(userRepository).saveAndFlush(any(User.class));
         verify(deviceService).registerDevice("DEVICE123", userCreateVO.purchaseDate(), savedUser);
+        verify(eventPublisher).publishEvent(new UserRegisteredEvent(1L));
     }
 
     @Test
@@ -93,8 +111,8 @@ class UserServiceTest {
                 "DEVICE123"
         );
 
-        User existingUser = new User();
-        when(userRepository.getByEmail("existing@example.com")).thenReturn(existingUser);
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation("uk_users_email"));
 
         // Act & Assert
         CustomException exception = assertThrows(CustomException.class, () -> {
@@ -103,7 +121,7 @@ class UserServiceTest {
 
         assertEquals("Email already taken", exception.getMessage());
         assertEquals(ErrorCode.AlreadyExists, exception.getErrorCode());
-        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(deviceService, never()).registerDevice(anyString(), any(), any());
     }
 
     @Test
@@ -119,9 +137,8 @@ class UserServiceTest {
                 "DEVICE123"
         );
 
-        User existingUser = new User();
-        when(userRepository.getByEmail(anyString())).thenReturn(null);
-        when(userRepository.getByPhone("1234567890")).thenReturn(existingUser);
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(uniqueViolation("uk_users_phone"));
 
         // Act & Assert
         CustomException exception = assertThrows(CustomException.class, () -> {
@@ -130,7 +147,7 @@ class UserServiceTest {
 
         assertEquals("Phone already taken", exception.getMessage());
         assertEquals(ErrorCode.AlreadyExists, exception.getErrorCode());
-        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(deviceService, never()).registerDevice(anyString(), any(), any());
     }
 
     @Test
@@ -149,8 +166,6 @@ class UserServiceTest {
         User savedUser = new User(userCreateVO);
         savedUser.setId(1L);
 
-        when(userRepository.getByEmail(anyString())).thenReturn(null);
-        when(userRepository.getByPhone(anyString())).thenReturn(null);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.saveAndFlush(any(User.class))).thenReturn(savedUser);
         doThrow(new CustomException("Device already registered", ErrorCode.AlreadyExists))
@@ -161,7 +176,8 @@ class UserServiceTest {
             userService.register(userCreateVO);
         });
 
-        verify(userRepository).delete(savedUser);
+        verify(deviceService, never()).registerDevice(anyString(), any(), any());
+        verify(userRepository, never()).delete(any(User.class));
     }
 
     @Test
@@ -177,8 +193,6 @@ class UserServiceTest {
                 null
         );
 
-        when(userRepository.getByEmail(anyString())).thenReturn(null);
-        when(userRepository.getByPhone(anyString())).thenReturn(null);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -203,8 +217,6 @@ class UserServiceTest {
                 "   "
         );
 
-        when(userRepository.getByEmail(anyString())).thenReturn(null);
-        when(userRepository.getByPhone(anyString())).thenReturn(null);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -219,7 +231,7 @@ class UserServiceTest {
     @Test
     void isEmailTaken_shouldReturnTrue_whenEmailExists() {
         // Arrange
-        when(userRepository.getByEmail("existing@example.com")).thenReturn(new User());
+        when(userRepository.existsByEmailNormalized("existing@example.com")).thenReturn(true);
 
         // Act
         boolean result = userService.isEmailTaken("existing@example.com");
@@ -231,7 +243,7 @@ class UserServiceTest {
     @Test
     void isEmailTaken_shouldReturnFalse_whenEmailDoesNotExist() {
         // Arrange
-        when(userRepository.getByEmail("new@example.com")).thenReturn(null);
+        when(userRepository.existsByEmailNormalized("new@example.com")).thenReturn(false);
 
         // Act
         boolean result = userService.isEmailTaken("new@example.com");
@@ -243,7 +255,7 @@ class UserServiceTest {
     @Test
     void isPhoneTaken_shouldReturnTrue_whenPhoneExists() {
         // Arrange
-        when(userRepository.getByPhone("1234567890")).thenReturn(new User());
+        when(userRepository.existsByPhoneNormalized("+1234567890")).thenReturn(true);
 
         // Act
         boolean result = userService.isPhoneTaken("1234567890");
@@ -255,7 +267,7 @@ class UserServiceTest {
     @Test
     void isPhoneTaken_shouldReturnFalse_whenPhoneDoesNotExist() {
         // Arrange
-        when(userRepository.getByPhone("9999999999")).thenReturn(null);
+        when(userRepository.existsByPhoneNormalized("+9999999999")).thenReturn(false);
 
         // Act
         boolean result = userService.isPhoneTaken("9999999999");
@@ -302,7 +314,7 @@ class UserServiceTest {
         User user = new User();
         user.setEmail("test@example.com");
 
-        when(userRepository.findByEmailOrPhone("test@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.findFirstByEmailNormalizedOrderByIdAsc("test@example.com")).thenReturn(Optional.of(user));
 
         // Act
         User result = userService.getUserByUsername("test@example.com");
@@ -315,7 +327,7 @@ class UserServiceTest {
     @Test
     void getUserByUsername_shouldThrowException_whenUserNotFound() {
         // Arrange
-        when(userRepository.findByEmailOrPhone("nonexistent@example.com")).thenReturn(Optional.empty());
+        when(userRepository.findFirstByEmailNormalizedOrderByIdAsc("nonexistent@example.com")).thenReturn(Optional.empty());
 
         // Act & Assert
         CustomException exception = assertThrows(CustomException.class, () -> {
@@ -326,6 +338,62 @@ class UserServiceTest {
         assertEquals(ErrorCode.EntityNotFound, exception.getErrorCode());
     }
 
+    @Test
+    void getCredentialsByUsername_shouldReturnCredentials_whenUserExists() {
+        // Arrange
+        UserCredentials credentials = new UserCredentials(1L, "test@example.com", "encodedPassword", UserRole.USER, "Test User", "Address", "0888123456");
+
+        when(userRepository.findCredentialsByEmail("test@example.com")).thenReturn(Optional.of(credentials));
+
+        // Act
+        UserCredentials result = userService.getCredentialsByUsername("test@example.com");
+
+        // Assert
+        assertEquals(1L, result.id());
+        assertEquals("encodedPassword", result.password());
+        verify(userRepository, never()).findFirstByEmailNormalizedOrderByIdAsc(anyString());
+    }
+
+    @Test
+    void getCredentialsByUsername_shouldLookUpPhone_whenUsernameIsPhoneNumber() {
+        // Arrange
+        UserCredentials credentials = new UserCredentials(1L, "test@example.com", "encodedPassword", UserRole.USER, "Test User", "Address", "0888123456");
+
+        when(userRepository.findCredentialsByPhone("+359888123456")).thenReturn(Optional.of(credentials));
+
+        // Act
+        UserCredentials result = userService.getCredentialsByUsername("0888 123 456");
+
+        // Assert
+        assertEquals(1L, result.id());
+        verify(userRepository, never()).findCredentialsByEmail(anyString());
+    }
+
+    @Test
+    void getCredentialsByUsername_shouldThrowException_whenUserNotFound() {
+        // Arrange
+        when(userRepository.findCredentialsByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> {
+            userService.getCredentialsByUsername("nonexistent@example.com");
+        });
+
+        assertEquals(ErrorCode.EntityNotFound, exception.getErrorCode());
+    }
+
+    @Test
+    void rehashPassword_shouldReplaceHash_onlyWhenStoredHashIsUnchanged() {
+        // Arrange
+        when(passwordEncoder.encode("secret")).thenReturn("newHash");
+
+        // Act
+        userService.rehashPassword(1L, "oldHash", "secret");
+
+        // Assert
+        verify(userRepository).updatePasswordHash(1L, "oldHash", "newHash");
+    }
+
     @Test
     void updatePassword_shouldUpdatePassword_whenOldPasswordMatches() {
         // Arrange
@@ -348,6 +416,9 @@ class UserServiceTest {
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
         verify(userRepository).save(userCaptor.capture());
         assertEquals("newEncodedPassword", userCaptor.getValue().getPassword());
+        assertNotNull(userCaptor.getValue().getTokensValidAfter());
+        verify(tokenRevocationRegistry).revoke(1L, userCaptor.getValue().getTokensValidAfter());
+        verify(userPrincipalCache).evict(1L);
     }
 
     @Test
@@ -411,8 +482,8 @@ class UserServiceTest {
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.getByEmail("new@example.com")).thenReturn(null);
-        when(userRepository.getByPhone("1111111111")).thenReturn(null);
+        when(userRepository.existsByEmailNormalized("new@example.com")).thenReturn(false);
+        when(userRepository.existsByPhoneNormalized("+1111111111")).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(existingUser);
 
         // Act
@@ -473,7 +544,7 @@ class UserServiceTest {
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.getByEmail("taken@example.com")).thenReturn(anotherUser);
+        when(userRepository.existsByEmailNormalized("taken@example.com")).thenReturn(true);
 
         // Act & Assert
         CustomException exception = assertThrows(CustomException.class, () -> {
@@ -505,8 +576,8 @@ class UserServiceTest {
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.getByEmail("user@example.com")).thenReturn(existingUser);
-        when(userRepository.getByPhone("1234567890")).thenReturn(anotherUser);
+        when(userRepository.existsByEmailNormalized("user@example.com")).thenReturn(true);
+        when(userRepository.existsByPhoneNormalized("+1234567890")).thenReturn(true);
 
         // Act & Assert
         CustomException exception = assertThrows(CustomException.class, () -> {
@@ -520,23 +591,17 @@ class UserServiceTest {
     @Test
     void getUsers_shouldReturnAllUsers_whenSearchByIsNull() {
         // Arrange
-        User user1 = new User();
-        user1.setId(1L);
-        user1.setEmail("user1@example.com");
-        user1.setDevices(new ArrayList<>());
+        UserListing user1 = new UserListing(1L, "User One", "Address 1", "111", "user1@example.com");
+        UserListing user2 = new UserListing(2L, "User Two", "Address 2", "222", "user2@example.com");
+        DeviceSummaryVO device = new DeviceSummaryVO(1L, "ABC123", null, null, null, "Name", "Model");
 
-        User user2 = new User();
-        user2.setId(2L);
-        user2.setEmail("user2@example.com");
-        user2.setDevices(new ArrayList<>());
-
-        List<User> users = Arrays.asList(user1, user2);
-        Page<User> userPage = new PageImpl<>(users, PageRequest.of(0, 10), 2);
+        Page<UserListing> userPage = new PageImpl<>(Arrays.asList(user1, user2), PageRequest.of(0, 10), 2);
 
         when(userRepository.getAllUsers(PageRequest.of(0, 10))).thenReturn(userPage);
+        when(userRepository.findDeviceSummaries(List.of(1L, 2L))).thenReturn(List.of(device));
 
         // Act
-        CustomPage result = userService.getUsers(null, 1, 10);
+        CustomPage<UserListing> result = userService.getUsers(null, 1, 10);
 
         // Assert
         assertEquals(1, result.getTotalPages());
@@ -544,52 +609,46 @@ class UserServiceTest {
         assertEquals(10, result.getSize());
         assertEquals(2, result.getTotalItems());
         assertEquals(2, result.getItems().size());
+        assertEquals(List.of(device), result.getItems().get(0).devices());
+        assertTrue(result.getItems().get(1).devices().isEmpty());
     }
 
     @Test
-    void getUsers_shouldReturnFilteredUsers_whenSearchByProvided() {
+    void getUsers_shouldReturnOnlyMatchingDevices_whenSearchByProvided() {
         // Arrange
-        Device device1 = new Device();
-        device1.setSerialNumber("ABC123");
-
-        Device device2 = new Device();
-        device2.setSerialNumber("XYZ789");
-
-        User user = new User();
-        user.setId(1L);
-        user.setEmail("user@example.com");
-        user.setDevices(new ArrayList<>(Arrays.asList(device1, device2)));
+        UserListing user = new UserListing(1L, "User", "Address", "111", "user@example.com");
+        DeviceSummaryVO matching = new DeviceSummaryVO(1L, "ABC123", null, null, null, "Name", "Model");
 
-        List<User> users = Arrays.asList(user);
-        Page<User> userPage = new PageImpl<>(users, PageRequest.of(0, 10), 1);
+        Page<UserListing> userPage = new PageImpl<>(List.of(user), PageRequest.of(0, 10), 1);
 
-        when(userRepository.searchBy("ABC", PageRequest.of(0, 10))).thenReturn(userPage);
+        when(userRepository.searchBy("abc", null, PageRequest.of(0, 10))).thenReturn(userPage);
+        when(userRepository.findDeviceSummariesBySerialNumber(List.of(1L), "abc")).thenReturn(List.of(matching));
 
         // Act
-        CustomPage result = userService.getUsers("ABC", 1, 10);
+        CustomPage<UserListing> result = userService.getUsers("ABC", 1, 10);
 
         // Assert
         assertEquals(1, result.getTotalItems());
-        verify(userRepository).searchBy("ABC", PageRequest.of(0, 10));
+        assertEquals(List.of(matching), result.getItems().get(0).devices());
+        verify(userRepository).searchBy("abc", null, PageRequest.of(0, 10));
+        verify(userRepository, never()).findDeviceSummaries(any());
     }
 
     @Test
     void getUsers_shouldHandlePagination() {
         // Arrange
-        List<User> users = new ArrayList<>();
+        List<UserListing> users = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
-            User user = new User();
-            user.setId((long) i);
-            user.setDevices(new ArrayList<>());
-            users.add(user);
+            users.add(new UserListing((long) i, null, null, null, null));
         }
 
-        Page<User> userPage = new PageImpl<>(users, PageRequest.of(1, 5), 15);
+        Page<UserListing> userPage = new PageImpl<>(users, PageRequest.of(1, 5), 15);
 
         when(userRepository.getAllUsers(PageRequest.of(1, 5))).thenReturn(userPage);
+        when(userRepository.findDeviceSummaries(List.of(0L, 1L, 2L, 3L, 4L))).thenReturn(List.of());
 
         // Act
-        CustomPage result = userService.getUsers(null, 2, 5);
+        CustomPage<UserListing> result = userService.getUsers(null, 2, 5);
 
         // Assert
         assertEquals(3, result.getTotalPages());
@@ -597,4 +656,24 @@ class UserServiceTest {
         assertEquals(5, result.getSize());
         assertEquals(15, result.getTotalItems());
     }
+
+    @Test
+    void getUsers_shouldNotLoadDevices_whenPageIsEmpty() {
+        // Arrange
+        when(userRepository.getAllUsers(PageRequest.of(0, 10))).thenReturn(Page.empty(PageRequest.of(0, 10)));
+
+        // Act
+        CustomPage<UserListing> result = userService.getUsers(null, 1, 10);
+
+        // Assert
+        assertTrue(result.getItems().isEmpty());
+        verify(userRepository, never()).findDeviceSummaries(any());
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        return new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException("duplicate key"), constraintName)
+        );
+    }
 }